@@ -7,6 +7,7 @@ import RPi.GPIO as GPIO
 import time
 import paho.mqtt.client as mqtt
 import json
+import struct
 from datetime import datetime
 import smbus2
 
@@ -15,7 +16,18 @@ MQTT_BROKER = "192.168.1.152"  # Change to your laptop IP
 MQTT_PORT = 1883
 DEVICE_ID = "TEST_001"
 LOCATION = "Main Street Bridge"
-CLEARANCE_HEIGHT = 13.5  # feet
+CLEARANCE_HEIGHT = 13.5  # feet (fallback until the server pushes config)
+
+# Reporting mode, overridden by the retained message on detector/<id>/config
+# ALL_READINGS: publish every measurement; VIOLATIONS_ONLY: violations plus a periodic summary
+REPORTING_MODE = "ALL_READINGS"
+SUMMARY_INTERVAL = 60  # seconds
+
+# Payload format: "json" publishes one JSON object per reading; "binary" batches readings
+# into compact frames on detector/<id>/readings (violations are still sent immediately)
+PAYLOAD_FORMAT = "json"
+FRAME_MAX_READINGS = 10
+FRAME_MAX_AGE = 30  # seconds a buffered sub-clearance reading may wait
 
 # GPIO Pin Configuration
 TRIG_PIN = 17  # HC-SR04 Trigger
@@ -54,14 +66,33 @@ except Exception as e:
 # MQTT Setup
 client = mqtt.Client()
 
+CONFIG_TOPIC = f"detector/{DEVICE_ID}/config"
+
 def on_connect(client, userdata, flags, rc):
     if rc == 0:
         print(f"âœ“ Connected to MQTT broker at {MQTT_BROKER}")
         lcd_string("MQTT Connected", 2)
+        # Retained, so the current config arrives right after every (re)connect
+        client.subscribe(CONFIG_TOPIC, qos=1)
     else:
         print(f"âœ— Connection failed with code {rc}")
 
+def on_message(client, userdata, msg):
+    """Apply clearance and reporting mode pushed by the server"""
+    global CLEARANCE_HEIGHT, REPORTING_MODE, SUMMARY_INTERVAL
+    if msg.topic != CONFIG_TOPIC or not msg.payload:
+        return
+    try:
+        config = json.loads(msg.payload.decode("utf-8"))
+        CLEARANCE_HEIGHT = float(config.get("clearance_height", CLEARANCE_HEIGHT))
+        REPORTING_MODE = config.get("reporting_mode", REPORTING_MODE)
+        SUMMARY_INTERVAL = int(config.get("summary_interval_seconds", SUMMARY_INTERVAL))
+        print(f"Config received: clearance {CLEARANCE_HEIGHT} ft, mode {REPORTING_MODE}")
+    except (ValueError, TypeError) as e:
+        print(f"Ignoring malformed config: {e}")
+
 client.on_connect = on_connect
+client.on_message = on_message
 
 try:
     client.connect(MQTT_BROKER, MQTT_PORT, 60)
@@ -262,6 +293,65 @@ def publish_violation(distance_cm, vehicle_height_feet):
     except Exception as e:
         print(f"MQTT publish error: {e}")
 
+# Binary frame: header "BSDF" | u8 version | u8 reserved | u16 count, then 16-byte
+# little-endian records: i64 epoch ms | f32 height ft | i16 temp 0.01 C | u8 status | u8 flags
+FRAME_MAGIC = b"BSDF"
+FRAME_VERSION = 1
+FRAME_NO_TEMPERATURE = -32768
+FRAME_STATUS_OK = 0
+FRAME_FLAG_VIOLATION = 0x01
+
+frame_records = []
+frame_started = None
+
+def queue_reading(vehicle_height_feet, violation):
+    """Add a reading to the pending binary frame"""
+    global frame_started
+    if not frame_records:
+        frame_started = time.time()
+    frame_records.append(struct.pack(
+        "<qfhBB",
+        int(time.time() * 1000),
+        vehicle_height_feet,
+        FRAME_NO_TEMPERATURE,
+        FRAME_STATUS_OK,
+        FRAME_FLAG_VIOLATION if violation else 0
+    ))
+
+def flush_readings(force=False):
+    """Publish the pending frame when forced, full or old enough"""
+    if not frame_records:
+        return
+    if not force and len(frame_records) < FRAME_MAX_READINGS and time.time() - frame_started < FRAME_MAX_AGE:
+        return
+    try:
+        topic = f"detector/{DEVICE_ID}/readings"
+        payload = struct.pack("<4sBBH", FRAME_MAGIC, FRAME_VERSION, 0, len(frame_records)) + b"".join(frame_records)
+        client.publish(topic, payload, qos=1)
+        print(f"📤 Published frame of {len(frame_records)} readings ({len(payload)} bytes)")
+        frame_records.clear()
+        
+    except Exception as e:
+        print(f"MQTT publish error: {e}")
+
+def publish_summary(readings, max_height, window_seconds):
+    """Publish a summary of the sub-clearance readings not sent individually"""
+    try:
+        topic = f"detector/{DEVICE_ID}/summary"
+        payload = {
+            "device_id": DEVICE_ID,
+            "readings": readings,
+            "max_height": round(max_height, 2) if max_height is not None else None,
+            "window_seconds": window_seconds,
+            "clearance_height": CLEARANCE_HEIGHT,
+            "timestamp": datetime.now().isoformat()
+        }
+        
+        client.publish(topic, json.dumps(payload), qos=1)
+        
+    except Exception as e:
+        print(f"Summary error: {e}")
+
 def publish_heartbeat():
     """Publish heartbeat to indicate detector is online"""
     try:
@@ -298,6 +388,9 @@ def main():
     time.sleep(1)
     
     heartbeat_counter = 0
+    summary_readings = 0
+    summary_max_height = None
+    summary_started = time.time()
     
     try:
         while True:
@@ -320,8 +413,12 @@ def main():
                     # Display violation with flashing effect
                     display_violation_details(vehicle_height_feet, excess_height)
                     
-                    # Publish violation
-                    publish_violation(distance_cm, vehicle_height_feet)
+                    # Publish violation, flushing any buffered readings with it
+                    if PAYLOAD_FORMAT == "binary":
+                        queue_reading(vehicle_height_feet, True)
+                        flush_readings(force=True)
+                    else:
+                        publish_violation(distance_cm, vehicle_height_feet)
                     
                     # Keep violation displayed for longer
                     time.sleep(3)
@@ -333,14 +430,31 @@ def main():
                     # Display normal measurement
                     display_measurement(vehicle_height_feet, status)
                     
-                    # Publish to MQTT
-                    publish_height_measurement(distance_cm, vehicle_height_feet)
+                    # Publish to MQTT, or fold into the next summary
+                    if REPORTING_MODE == "VIOLATIONS_ONLY":
+                        summary_readings += 1
+                        summary_max_height = vehicle_height_feet if summary_max_height is None \
+                            else max(summary_max_height, vehicle_height_feet)
+                    elif PAYLOAD_FORMAT == "binary":
+                        queue_reading(vehicle_height_feet, False)
+                    else:
+                        publish_height_measurement(distance_cm, vehicle_height_feet)
                 
             else:
                 print("âœ— Measurement failed - out of range")
                 lcd_string("Sensor Error", 1)
                 lcd_string("Out of range", 2)
             
+            flush_readings()
+            
+            # Publish summary every SUMMARY_INTERVAL seconds in VIOLATIONS_ONLY mode
+            elapsed = time.time() - summary_started
+            if REPORTING_MODE == "VIOLATIONS_ONLY" and elapsed >= SUMMARY_INTERVAL:
+                publish_summary(summary_readings, summary_max_height, int(elapsed))
+                summary_readings = 0
+                summary_max_height = None
+                summary_started = time.time()
+            
             # Publish heartbeat every 10 measurements
             heartbeat_counter += 1
             if heartbeat_counter >= 10:
@@ -368,7 +482,8 @@ def cleanup():
     # Cleanup GPIO
     GPIO.cleanup()
     
-    # Stop MQTT
+    # Send buffered readings, then stop MQTT
+    flush_readings(force=True)
     client.loop_stop()
     client.disconnect()
     
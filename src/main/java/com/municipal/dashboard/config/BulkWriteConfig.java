@@ -0,0 +1,51 @@
+package com.municipal.dashboard.config;
+
+import com.municipal.dashboard.repository.BulkWriteRepository;
+import com.municipal.dashboard.repository.DetectorBatchRepository;
+import com.municipal.dashboard.repository.DetectorRepository;
+import com.municipal.dashboard.repository.JpaBulkWriteRepository;
+import com.municipal.dashboard.repository.PostgresBulkWriteRepository;
+import com.municipal.dashboard.repository.ViolationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Picks the bulk write backend. With {@code app.bulk-write.backend=auto} the COPY-based
+ * writer is used when the datasource is PostgreSQL and the portable JPA path otherwise.
+ */
+@Slf4j
+@Configuration
+public class BulkWriteConfig {
+
+    @Value("${app.bulk-write.backend:auto}")
+    private String backend;
+
+    @Bean
+    public BulkWriteRepository bulkWriteRepository(JdbcTemplate jdbcTemplate,
+                                                   ViolationRepository violationRepository,
+                                                   DetectorRepository detectorRepository,
+                                                   DetectorBatchRepository detectorBatchRepository) {
+        boolean postgres = switch (backend) {
+            case "postgres" -> true;
+            case "jpa" -> false;
+            case "auto" -> isPostgres(jdbcTemplate);
+            default -> throw new IllegalArgumentException("Unknown app.bulk-write.backend: " + backend);
+        };
+
+        BulkWriteRepository repository = postgres
+            ? new PostgresBulkWriteRepository(jdbcTemplate)
+            : new JpaBulkWriteRepository(violationRepository, detectorRepository, detectorBatchRepository);
+        log.info("Using {} bulk write backend", repository.getName());
+        return repository;
+    }
+
+    private static boolean isPostgres(JdbcTemplate jdbcTemplate) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+            connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+}
@@ -1,19 +1,27 @@
 package com.municipal.dashboard.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.cfg.DateTimeFeature;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
 
+// JSON goes through Spring Boot's auto-configured JsonMapper, which writes ISO-8601 dates
 @Configuration
 public class JacksonConfig {
     
+    // Binary mappers write dates as numeric timestamps; ISO strings defeat the point of a compact encoding
     @Bean
-    public ObjectMapper objectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        return mapper;
+    public CBORMapper cborMapper() {
+        return CBORMapper.builder()
+            .enable(DateTimeFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
     }
-}
\ No newline at end of file
+    
+    @Bean
+    public SmileMapper smileMapper() {
+        return SmileMapper.builder()
+            .enable(DateTimeFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    }
+}
@@ -8,36 +8,76 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.integration.channel.DirectChannel;
 import org.springframework.integration.config.EnableIntegration;
-import org.springframework.integration.core.MessageProducer;
 import org.springframework.integration.mqtt.core.DefaultMqttPahoClientFactory;
 import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
-import org.springframework.integration.mqtt.inbound.MqttPahoMessageDrivenChannelAdapter;
-import org.springframework.integration.mqtt.support.DefaultPahoMessageConverter;
+import org.springframework.integration.mqtt.outbound.MqttPahoMessageHandler;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
 @Configuration
 @EnableIntegration
 public class MqttConfig {
 
+    // Comma-separated; Paho tries the URIs in order on every (re)connect
     @Value("${mqtt.broker-url:tcp://localhost:1883}")
-    private String brokerUrl;
+    private String[] brokerUrls;
 
     @Value("${mqtt.client-id:municipal-dashboard-server}")
     private String clientId;
 
-    @Value("${mqtt.topics:detector/+/height,detector/+/violation,detector/+/heartbeat}")
-    private String[] topics;
+    @Value("${mqtt.topics:detector/+/height,detector/+/violation,detector/+/heartbeat,detector/+/summary}")
+    private String[] jsonTopics;
+
+    // Binary multi-reading frames; subscribed next to the JSON topics
+    @Value("${mqtt.reading-topics:detector/+/readings}")
+    private String[] readingTopics;
+
+    // A persistent session lets the broker queue QoS 1 messages while the dashboard is down;
+    // it needs the stable client id above
+    @Value("${mqtt.clean-session:false}")
+    private boolean cleanSession;
+
+    // Inbound clients sharing the topics through a $share subscription, when no shards are given
+    @Value("${mqtt.inbound.connections:1}")
+    private int connections;
+
+    @Value("${mqtt.inbound.shared-group:dashboard}")
+    private String sharedGroup;
+
+    // One inbound client per ';'-separated entry, each subscribing to its ','-separated topics
+    @Value("${mqtt.inbound.shards:}")
+    private String shards;
+
+    @Value("${mqtt.inbound.recovery-interval-ms:10000}")
+    private int recoveryInterval;
+    
+    // Client ids of an earlier layout whose persistent sessions are discarded on start, e.g.
+    // id-3,id-4 after going from 4 connections to 2; the plain id is added when it is unused
+    @Value("${mqtt.inbound.stale-client-ids:}")
+    private String[] staleClientIds;
+
+    // Paho's default of 10 fails publishes beyond it with 32202 (too many publishes in progress)
+    @Value("${mqtt.outbound.max-inflight:100}")
+    private int maxInflight;
 
     @Bean
     public MqttPahoClientFactory mqttClientFactory() {
         DefaultMqttPahoClientFactory factory = new DefaultMqttPahoClientFactory();
         MqttConnectOptions options = new MqttConnectOptions();
-        options.setServerURIs(new String[]{brokerUrl});
+        options.setServerURIs(brokerUrls);
         options.setAutomaticReconnect(true);
-        options.setCleanSession(true);
+        options.setCleanSession(cleanSession);
         options.setConnectionTimeout(10);
         options.setKeepAliveInterval(60);
+        options.setMaxInflight(maxInflight);
         factory.setConnectionOptions(options);
         return factory;
     }
@@ -48,14 +88,58 @@ public class MqttConfig {
     }
 
     @Bean
-    public MessageProducer inbound() {
-        MqttPahoMessageDrivenChannelAdapter adapter =
-                new MqttPahoMessageDrivenChannelAdapter(clientId, mqttClientFactory(), topics);
-        adapter.setCompletionTimeout(5000);
-        adapter.setConverter(new DefaultPahoMessageConverter());
-        adapter.setQos(1);
-        adapter.setOutputChannel(mqttInputChannel());
-        return adapter;
+    public MqttInboundPool inbound() {
+        Map<String, String[]> subscriptions = inboundSubscriptions();
+        return new MqttInboundPool(mqttClientFactory(), mqttInputChannel(), subscriptions, recoveryInterval,
+                                   staleSessions(subscriptions.keySet()));
+    }
+    
+    // Only persistent sessions outlive their client; ids still in use are never discarded
+    private List<String> staleSessions(Set<String> inUse) {
+        if (cleanSession) {
+            return List.of();
+        }
+        Set<String> stale = new LinkedHashSet<>();
+        stale.add(clientId);
+        Arrays.stream(staleClientIds)
+            .map(String::trim)
+            .filter(id -> !id.isEmpty())
+            .forEach(stale::add);
+        stale.removeAll(inUse);
+        return List.copyOf(stale);
+    }
+
+    // Client id -> topics. A single connection keeps the plain client id so its persistent session survives
+    private Map<String, String[]> inboundSubscriptions() {
+        String[] topics = Stream.concat(Arrays.stream(jsonTopics), Arrays.stream(readingTopics))
+            .map(String::trim)
+            .filter(topic -> !topic.isEmpty())
+            .toArray(String[]::new);
+        Map<String, String[]> subscriptions = new LinkedHashMap<>();
+        if (!shards.isBlank()) {
+            String[] shardTopics = shards.split(";");
+            for (int i = 0; i < shardTopics.length; i++) {
+                String[] shard = Arrays.stream(shardTopics[i].split(","))
+                    .map(String::trim)
+                    .filter(topic -> !topic.isEmpty())
+                    .toArray(String[]::new);
+                if (shard.length == 0) {
+                    throw new IllegalArgumentException("mqtt.inbound.shards entry " + (i + 1) + " has no topics");
+                }
+                subscriptions.put(clientId + "-" + (i + 1), shard);
+            }
+        } else if (connections > 1) {
+            // The broker hands each message of a shared subscription to one member of the group
+            String[] shared = Arrays.stream(topics)
+                .map(topic -> "$share/" + sharedGroup + "/" + topic)
+                .toArray(String[]::new);
+            for (int i = 1; i <= connections; i++) {
+                subscriptions.put(clientId + "-" + i, shared);
+            }
+        } else {
+            subscriptions.put(clientId, topics);
+        }
+        return subscriptions;
     }
 
     @Bean
@@ -63,4 +147,22 @@ public class MqttConfig {
     public MessageHandler handler(MqttMessageHandler mqttMessageHandler) {
         return mqttMessageHandler::handleMessage;
     }
+
+    @Bean
+    public MessageChannel mqttOutboundChannel() {
+        return new DirectChannel();
+    }
+
+    // Separate client id: the broker would drop the inbound session if both shared one.
+    // Synchronous, so a publish returns or throws once the broker has acknowledged it
+    @Bean
+    @ServiceActivator(inputChannel = "mqttOutboundChannel")
+    public MessageHandler mqttOutbound() {
+        MqttPahoMessageHandler handler = new MqttPahoMessageHandler(clientId + "-publisher", mqttClientFactory());
+        handler.setAsync(false);
+        handler.setDefaultQos(1);
+        handler.setDefaultRetained(true);
+        handler.setCompletionTimeout(5000);
+        return handler;
+    }
 }
\ No newline at end of file
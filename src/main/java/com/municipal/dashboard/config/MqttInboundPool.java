@@ -0,0 +1,265 @@
+package com.municipal.dashboard.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
+import org.springframework.integration.mqtt.event.MqttConnectionFailedEvent;
+import org.springframework.integration.mqtt.event.MqttIntegrationEvent;
+import org.springframework.integration.mqtt.event.MqttSubscribedEvent;
+import org.springframework.integration.mqtt.inbound.MqttPahoMessageDrivenChannelAdapter;
+import org.springframework.integration.mqtt.support.DefaultPahoMessageConverter;
+import org.springframework.messaging.MessageChannel;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inbound MQTT connections. A Paho v3 client reads and dispatches on a single thread, so the
+ * topic space can be split over several clients, each with its own client id, subscriptions,
+ * reconnect cycle and throughput counters. All of them feed the same input channel.
+ *
+ * Persistent sessions are keyed by client id, and the ids change with the layout: one connection
+ * uses the plain id, N connections or shards use id-1..id-N. The broker keeps queueing QoS 1
+ * messages for the session an old layout left behind until it expires, if it ever does, so on
+ * start those ids are connected once with a clean session to discard them.
+ */
+@Slf4j
+public class MqttInboundPool implements SmartLifecycle, BeanFactoryAware, ApplicationEventPublisherAware,
+        ApplicationListener<MqttIntegrationEvent>, DisposableBean {
+
+    private final MqttPahoClientFactory clientFactory;
+    private final MessageChannel outputChannel;
+    private final Map<String, String[]> subscriptions;
+    private final int recoveryInterval;
+    private final List<String> staleClientIds;
+
+    private final List<Connection> connections = new ArrayList<>();
+    private final Map<Object, Connection> byAdapter = new ConcurrentHashMap<>();
+    private BeanFactory beanFactory;
+    private ApplicationEventPublisher eventPublisher;
+    private volatile boolean running;
+
+    public MqttInboundPool(MqttPahoClientFactory clientFactory, MessageChannel outputChannel,
+                           Map<String, String[]> subscriptions, int recoveryInterval, List<String> staleClientIds) {
+        this.clientFactory = clientFactory;
+        this.outputChannel = outputChannel;
+        this.subscriptions = subscriptions;
+        this.recoveryInterval = recoveryInterval;
+        this.staleClientIds = staleClientIds;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (connections.isEmpty()) {
+            subscriptions.forEach((clientId, topics) -> connections.add(connect(clientId, topics)));
+        }
+        connections.forEach(connection -> connection.adapter.start());
+        running = true;
+        log.info("Started {} inbound MQTT connections", connections.size());
+        if (!staleClientIds.isEmpty()) {
+            // Off the startup path: an unreachable broker would hold it for the connection timeout
+            Thread cleaner = new Thread(this::discardStaleSessions, "mqtt-stale-sessions");
+            cleaner.setDaemon(true);
+            cleaner.start();
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        connections.forEach(connection -> connection.adapter.stop());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Same phase the single inbound adapter bean had; IngestAdmission relies on starting before it
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE / 2;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        connections.forEach(connection -> connection.adapter.destroy());
+    }
+
+    @Override
+    public void onApplicationEvent(MqttIntegrationEvent event) {
+        Connection connection = byAdapter.get(event.getSource());
+        if (connection == null) {
+            return;
+        }
+        if (event instanceof MqttSubscribedEvent) {
+            connection.subscribed();
+        } else if (event instanceof MqttConnectionFailedEvent failed) {
+            connection.failed(failed.getCause());
+            log.warn("MQTT connection {} lost: {}", connection.clientId,
+                     failed.getCause() != null ? failed.getCause().getMessage() : "unknown cause");
+        }
+    }
+
+    public List<Map<String, Object>> getStats() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> stats = new ArrayList<>(connections.size());
+        for (Connection connection : List.copyOf(connections)) {
+            stats.add(connection.stats(now));
+        }
+        return stats;
+    }
+
+    // A CONNECT with clean session set makes the broker drop whatever session the id had
+    private void discardStaleSessions() {
+        MqttConnectOptions configured = clientFactory.getConnectionOptions();
+        MqttConnectOptions clean = new MqttConnectOptions();
+        clean.setServerURIs(configured.getServerURIs());
+        clean.setConnectionTimeout(configured.getConnectionTimeout());
+        clean.setUserName(configured.getUserName());
+        if (configured.getPassword() != null) {
+            clean.setPassword(configured.getPassword());
+        }
+        clean.setCleanSession(true);
+        for (String clientId : staleClientIds) {
+            try {
+                IMqttClient client = clientFactory.getClientInstance(configured.getServerURIs()[0], clientId);
+                try {
+                    client.connect(clean);
+                    client.disconnect();
+                } finally {
+                    client.close();
+                }
+                log.info("Discarded persistent MQTT session of client {}", clientId);
+            } catch (MqttException e) {
+                log.warn("Could not discard persistent MQTT session of client {}: {}", clientId, e.getMessage());
+            }
+        }
+    }
+
+    private Connection connect(String clientId, String[] topics) {
+        MqttPahoMessageDrivenChannelAdapter adapter =
+                new MqttPahoMessageDrivenChannelAdapter(clientId, clientFactory, topics);
+        Connection connection = new Connection(clientId, topics, adapter);
+
+        // Payloads stay byte[]: JSON is parsed from the bytes and binary frames must stay intact
+        DefaultPahoMessageConverter converter = new DefaultPahoMessageConverter();
+        converter.setPayloadAsBytes(true);
+        adapter.setConverter(converter);
+        adapter.setCompletionTimeout(5000);
+        adapter.setRecoveryInterval(recoveryInterval);
+        adapter.setQos(1);
+        adapter.setOutputChannel((message, timeout) -> {
+            connection.received(message.getPayload());
+            return outputChannel.send(message, timeout);
+        });
+        adapter.setBeanName("mqttInbound-" + clientId);
+        adapter.setBeanFactory(beanFactory);
+        adapter.setApplicationEventPublisher(eventPublisher);
+        adapter.afterPropertiesSet();
+
+        byAdapter.put(adapter, connection);
+        return connection;
+    }
+
+    private static final class Connection {
+
+        private static final int RATE_SECONDS = 60;
+
+        private final String clientId;
+        private final String[] topics;
+        private final MqttPahoMessageDrivenChannelAdapter adapter;
+
+        // Written by the connection's own callback thread; read under the lock for stats
+        private long messages;
+        private long bytes;
+        private long lastMessageAt;
+        private final long[] perSecond = new long[RATE_SECONDS];
+        private final long[] seconds = new long[RATE_SECONDS];
+
+        private volatile boolean connected;
+        private volatile long connects;
+        private volatile long failures;
+        private volatile long lastConnectedAt;
+        private volatile String lastFailure;
+
+        Connection(String clientId, String[] topics, MqttPahoMessageDrivenChannelAdapter adapter) {
+            this.clientId = clientId;
+            this.topics = topics;
+            this.adapter = adapter;
+        }
+
+        synchronized void received(Object payload) {
+            long now = System.currentTimeMillis();
+            long second = now / 1000;
+            int slot = (int) (second % RATE_SECONDS);
+            if (seconds[slot] != second) {
+                seconds[slot] = second;
+                perSecond[slot] = 0;
+            }
+            perSecond[slot]++;
+            messages++;
+            bytes += payload instanceof byte[] raw ? raw.length : 0;
+            lastMessageAt = now;
+        }
+
+        void subscribed() {
+            connected = true;
+            connects++;
+            lastConnectedAt = System.currentTimeMillis();
+        }
+
+        void failed(Throwable cause) {
+            connected = false;
+            failures++;
+            lastFailure = cause != null ? cause.getMessage() : null;
+        }
+
+        synchronized Map<String, Object> stats(long now) {
+            long oldest = now / 1000 - RATE_SECONDS;
+            long lastMinute = 0;
+            for (int i = 0; i < RATE_SECONDS; i++) {
+                if (seconds[i] > oldest) {
+                    lastMinute += perSecond[i];
+                }
+            }
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("client_id", clientId);
+            stats.put("topics", topics);
+            stats.put("connected", connected);
+            stats.put("connects", connects);
+            stats.put("connection_failures", failures);
+            stats.put("last_connected_at", lastConnectedAt);
+            stats.put("last_failure", lastFailure);
+            stats.put("messages", messages);
+            stats.put("bytes", bytes);
+            stats.put("messages_per_second_1m", lastMinute / (double) RATE_SECONDS);
+            stats.put("last_message_at", lastMessageAt);
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.municipal.dashboard.config;
+
+import com.municipal.dashboard.dto.WebSocketNotification;
+import com.municipal.dashboard.service.WebSocketMessagingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-session opt-in to CBOR or Smile frames. A client sends {@code payload-encoding: cbor|smile}
+ * on CONNECT; notifications headed to that session are encoded from the notification object the
+ * message carries, so dates go out as numeric timestamps like REST CBOR, and sent as binary frames
+ * tagged with the same {@code payload-encoding} header. Only raw WebSocket sessions qualify, SockJS
+ * cannot carry binary frames and always receives JSON.
+ */
+@Slf4j
+public class StompPayloadEncodingInterceptor implements ChannelInterceptor {
+
+    public static final String ENCODING_HEADER = "payload-encoding";
+    public static final String BINARY_CAPABLE_ATTRIBUTE = "binaryFramesSupported";
+
+    private final Map<String, ObjectMapper> encoders;
+    private final Map<String, String> sessionEncodings = new ConcurrentHashMap<>();
+
+    // The simple broker hands the same notification to every subscriber, so one
+    // encoding per format serves a whole fan-out
+    private final Map<String, Encoded> lastEncoded = new ConcurrentHashMap<>();
+
+    public StompPayloadEncodingInterceptor(CBORMapper cborMapper, SmileMapper smileMapper) {
+        this.encoders = Map.of("cbor", cborMapper, "smile", smileMapper);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor stomp = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (stomp != null && stomp.getCommand() != null) {
+            trackSession(stomp);
+            return message;
+        }
+        return encodeOutbound(message);
+    }
+
+    private void trackSession(StompHeaderAccessor accessor) {
+        String sessionId = accessor.getSessionId();
+        if (sessionId == null) {
+            return;
+        }
+        if (accessor.getCommand() == StompCommand.CONNECT || accessor.getCommand() == StompCommand.STOMP) {
+            String requested = accessor.getFirstNativeHeader(ENCODING_HEADER);
+            Map<String, Object> attributes = accessor.getSessionAttributes();
+            boolean binaryCapable = attributes != null && Boolean.TRUE.equals(attributes.get(BINARY_CAPABLE_ATTRIBUTE));
+            if (requested != null && encoders.containsKey(requested) && binaryCapable) {
+                sessionEncodings.put(sessionId, requested);
+                log.debug("STOMP session {} negotiated {} payloads", sessionId, requested);
+            }
+        } else if (accessor.getCommand() == StompCommand.DISCONNECT) {
+            sessionEncodings.remove(sessionId);
+        }
+    }
+
+    private Message<?> encodeOutbound(Message<?> message) {
+        MessageHeaders headers = message.getHeaders();
+        if (SimpMessageHeaderAccessor.getMessageType(headers) == SimpMessageType.DISCONNECT_ACK) {
+            String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+            if (sessionId != null) {
+                sessionEncodings.remove(sessionId);
+            }
+            return message;
+        }
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || !(headers.get(WebSocketMessagingService.NOTIFICATION_HEADER) instanceof WebSocketNotification notification)) {
+            return message;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        String encoding = sessionId != null ? sessionEncodings.get(sessionId) : null;
+        MimeType contentType = headers.get(MessageHeaders.CONTENT_TYPE, MimeType.class);
+        if (encoding == null || contentType == null || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return message;
+        }
+
+        try {
+            byte[] encoded = encode(encoding, notification);
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+            // StompSubProtocolHandler only emits binary frames for octet-stream content
+            accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+            accessor.setNativeHeader(ENCODING_HEADER, encoding);
+            return MessageBuilder.createMessage(encoded, accessor.getMessageHeaders());
+        } catch (Exception e) {
+            log.warn("Falling back to JSON for session {}: {}", sessionId, e.getMessage());
+            return message;
+        }
+    }
+
+    private byte[] encode(String encoding, WebSocketNotification notification) {
+        Encoded cached = lastEncoded.get(encoding);
+        if (cached != null && cached.source() == notification) {
+            return cached.bytes();
+        }
+        byte[] bytes = encoders.get(encoding).writeValueAsBytes(notification);
+        lastEncoded.put(encoding, new Encoded(notification, bytes));
+        return bytes;
+    }
+
+    private record Encoded(WebSocketNotification source, byte[] bytes) {
+    }
+}
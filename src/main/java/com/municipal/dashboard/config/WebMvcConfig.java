@@ -0,0 +1,28 @@
+package com.municipal.dashboard.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.http.converter.smile.JacksonSmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+    
+    private final CBORMapper cborMapper;
+    private final SmileMapper smileMapper;
+    
+    // Appended after the JSON converter so JSON stays the default; clients opt in via
+    // Accept: application/cbor or application/x-jackson-smile
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new JacksonCborHttpMessageConverter(cborMapper));
+        converters.add(new JacksonSmileHttpMessageConverter(smileMapper));
+    }
+}
@@ -1,22 +1,23 @@
 package com.municipal.dashboard.controller;
 
 import com.municipal.dashboard.dto.DashboardStats;
-import com.municipal.dashboard.model.Detector;
-import com.municipal.dashboard.model.ViolationSeverity;
-import com.municipal.dashboard.model.ViolationStatus;
-import com.municipal.dashboard.repository.ViolationRepository;
-import com.municipal.dashboard.service.DetectorService;
+import com.municipal.dashboard.dto.HotDetector;
+import com.municipal.dashboard.service.DashboardStatsService;
+import com.municipal.dashboard.service.DetectorHitRates;
+import com.municipal.dashboard.service.EventTimeTracker;
+import com.municipal.dashboard.service.StartupProbe;
+import com.municipal.dashboard.service.ViolationAggregates;
 import com.municipal.dashboard.service.WebSocketMessagingService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -26,41 +27,16 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class DashboardController {
     
-    private final ViolationRepository violationRepository;
-    private final DetectorService detectorService;
+    private final DashboardStatsService dashboardStatsService;
     private final WebSocketMessagingService webSocketMessagingService;
+    private final StartupProbe startupProbe;
+    private final DetectorHitRates detectorHitRates;
+    private final ViolationAggregates violationAggregates;
+    private final EventTimeTracker eventTimeTracker;
     
     @GetMapping("/stats")
     public ResponseEntity<DashboardStats> getDashboardStats() {
-        List<Detector> activeDetectors = detectorService.findAllActive();
-        List<Detector> inactiveDetectors = detectorService.findInactiveDetectors();
-        
-        Long pendingViolations = violationRepository.countByStatus(ViolationStatus.DETECTED);
-        Long acknowledgedViolations = violationRepository.countByStatus(ViolationStatus.ACKNOWLEDGED);
-        Long totalViolations = violationRepository.count();
-        
-        LocalDateTime startOfDay = LocalDateTime.now().with(LocalTime.MIN);
-        LocalDateTime endOfDay = LocalDateTime.now().with(LocalTime.MAX);
-        Long violationsToday = (long) violationRepository
-            .findByDetectedAtBetween(startOfDay, endOfDay)
-            .size();
-        
-        Long criticalViolations = (long) violationRepository
-            .findBySeverity(ViolationSeverity.CRITICAL)
-            .stream()
-            .filter(v -> v.getStatus() == ViolationStatus.DETECTED)
-            .count();
-        
-        DashboardStats stats = DashboardStats.builder()
-            .totalDetectors(activeDetectors.size() + inactiveDetectors.size())
-            .activeDetectors(activeDetectors.size())
-            .inactiveDetectors(inactiveDetectors.size())
-            .pendingViolations(pendingViolations)
-            .acknowledgedViolations(acknowledgedViolations)
-            .totalViolations(totalViolations)
-            .violationsToday(violationsToday)
-            .criticalViolations(criticalViolations)
-            .build();
+        DashboardStats stats = dashboardStatsService.currentStats();
         
         webSocketMessagingService.broadcastStatsUpdate(stats);
         
@@ -75,4 +51,30 @@ public class DashboardController {
         health.put("websocket", "enabled");
         return ResponseEntity.ok(health);
     }
+    
+    @GetMapping("/startup")
+    public ResponseEntity<Map<String, Object>> getStartupTimings() {
+        return ResponseEntity.ok(startupProbe.getStats());
+    }
+    
+    // Most violated detectors over a sliding window, served from memory
+    @GetMapping("/hot-detectors")
+    public ResponseEntity<List<HotDetector>> getHotDetectors(
+            @RequestParam(defaultValue = "1h") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(detectorHitRates.top(window, limit));
+    }
+    
+    // Event-time daily counts and how many late violations were folded into each day
+    @GetMapping("/aggregates")
+    public ResponseEntity<Map<String, Object>> getAggregates() {
+        Map<String, Object> aggregates = new LinkedHashMap<>(violationAggregates.getStats());
+        aggregates.put("late_readings", eventTimeTracker.getLateReadings());
+        return ResponseEntity.ok(aggregates);
+    }
+    
+    @GetMapping("/hot-detectors/stats")
+    public ResponseEntity<Map<String, Object>> getHitRateStats() {
+        return ResponseEntity.ok(detectorHitRates.getStats());
+    }
 }
\ No newline at end of file
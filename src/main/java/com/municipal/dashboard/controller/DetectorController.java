@@ -1,15 +1,26 @@
 package com.municipal.dashboard.controller;
 
+import com.municipal.dashboard.dto.DetectorImportResponse;
 import com.municipal.dashboard.model.Detector;
+import com.municipal.dashboard.model.PurgeJob;
+import com.municipal.dashboard.model.ReportingMode;
+import com.municipal.dashboard.service.DetectorImportService;
+import com.municipal.dashboard.service.DetectorPurgeService;
 import com.municipal.dashboard.service.DetectorService;
+import com.municipal.dashboard.service.StateVersionTracker;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/detectors")
@@ -18,19 +29,38 @@ import java.util.Map;
 public class DetectorController {
     
     private final DetectorService detectorService;
+    private final StateVersionTracker stateVersionTracker;
+    private final DetectorImportService detectorImportService;
+    private final DetectorPurgeService detectorPurgeService;
     
     @PostMapping("/register")
     public ResponseEntity<Detector> registerDetector(
             @RequestParam String deviceId,
             @RequestParam String location,
-            @RequestParam(required = false) Double clearanceHeight) {
+            @RequestParam(required = false) Double clearanceHeight,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude) {
         
-        Detector detector = detectorService.registerDetector(deviceId, location, clearanceHeight);
+        Detector detector = detectorService.registerDetector(deviceId, location, clearanceHeight, latitude, longitude);
         return ResponseEntity.status(HttpStatus.CREATED).body(detector);
     }
     
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<DetectorImportResponse> importDetectorsJson(InputStream body) throws IOException {
+        return ResponseEntity.ok(detectorImportService.importJson(body));
+    }
+    
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<DetectorImportResponse> importDetectorsCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(detectorImportService.importCsv(body));
+    }
+    
     @GetMapping
-    public ResponseEntity<List<Detector>> getAllActiveDetectors() {
+    public ResponseEntity<List<Detector>> getAllActiveDetectors(WebRequest request) {
+        String etag = StateVersionTracker.etag("detectors", stateVersionTracker.getDetectorVersion());
+        if (request.checkNotModified(etag, stateVersionTracker.getDetectorsLastModified())) {
+            return null;
+        }
         List<Detector> detectors = detectorService.findAllActive();
         return ResponseEntity.ok(detectors);
     }
@@ -43,11 +73,28 @@ public class DetectorController {
     }
     
     @GetMapping("/inactive")
-    public ResponseEntity<List<Detector>> getInactiveDetectors() {
+    public ResponseEntity<List<Detector>> getInactiveDetectors(WebRequest request) {
+        Optional<String> etag = detectorService.currentInactiveDetectorsTag();
+        if (etag.isPresent() && request.checkNotModified(etag.get())) {
+            return null;
+        }
         List<Detector> detectors = detectorService.findInactiveDetectors();
+        Optional<String> refreshed = detectorService.currentInactiveDetectorsTag();
+        if (etag.isEmpty() && refreshed.isPresent() && request.checkNotModified(refreshed.get())) {
+            return null;
+        }
         return ResponseEntity.ok(detectors);
     }
     
+    @PutMapping("/{deviceId}/config")
+    public ResponseEntity<Detector> updateDetectorConfig(
+            @PathVariable String deviceId,
+            @RequestParam(required = false) Double clearanceHeight,
+            @RequestParam(required = false) ReportingMode reportingMode) {
+        Detector detector = detectorService.updateConfig(deviceId, clearanceHeight, reportingMode);
+        return ResponseEntity.ok(detector);
+    }
+    
     @PutMapping("/{deviceId}/deactivate")
     public ResponseEntity<Void> deactivateDetector(@PathVariable String deviceId) {
         detectorService.deactivateDetector(deviceId);
@@ -63,10 +110,12 @@ public class DetectorController {
     @DeleteMapping("/{deviceId}")
     public ResponseEntity<Map<String, Object>> deleteDetector(@PathVariable String deviceId) {
         try {
-            detectorService.deleteDetector(deviceId);
-            return ResponseEntity.ok(Map.of(
-                "message", "Detector and associated violations deleted successfully",
+            PurgeJob job = detectorPurgeService.startPurge(deviceId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "message", "Detector deletion started; violations are purged in the background",
                 "deviceId", deviceId,
+                "jobId", job.getId(),
+                "totalViolations", job.getTotalViolations(),
                 "timestamp", LocalDateTime.now().toString()
             ));
         } catch (RuntimeException e) {
@@ -78,4 +127,11 @@ public class DetectorController {
                 ));
         }
     }
+    
+    @GetMapping("/purge-jobs/{jobId}")
+    public ResponseEntity<PurgeJob> getPurgeJob(@PathVariable Long jobId) {
+        return detectorPurgeService.getJob(jobId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
 }
\ No newline at end of file
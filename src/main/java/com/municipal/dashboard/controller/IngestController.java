@@ -0,0 +1,63 @@
+package com.municipal.dashboard.controller;
+
+import com.municipal.dashboard.config.MqttInboundPool;
+import com.municipal.dashboard.dto.BatchIngestResponse;
+import com.municipal.dashboard.service.DetectorConfigPublisher;
+import com.municipal.dashboard.service.IngestAdmission;
+import com.municipal.dashboard.service.IngestService;
+import com.municipal.dashboard.spool.SpoolDrainer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/ingest")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class IngestController {
+    
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    
+    private final IngestService ingestService;
+    private final IngestAdmission ingestAdmission;
+    private final MqttInboundPool mqttInboundPool;
+    private final DetectorConfigPublisher detectorConfigPublisher;
+    private final Optional<SpoolDrainer> spoolDrainer;
+    
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchIngestResponse> ingestJsonArray(InputStream body) throws IOException {
+        return ResponseEntity.ok(ingestService.ingestJsonArray(body));
+    }
+    
+    @PostMapping(value = "/batch", consumes = APPLICATION_NDJSON)
+    public ResponseEntity<BatchIngestResponse> ingestNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(ingestService.ingestNdjson(body));
+    }
+    
+    @GetMapping("/admission")
+    public ResponseEntity<Map<String, Object>> getAdmissionStats() {
+        return ResponseEntity.ok(ingestAdmission.getStats());
+    }
+    
+    @GetMapping("/spool")
+    public ResponseEntity<Map<String, Object>> getSpoolStats() {
+        return ResponseEntity.ok(spoolDrainer.map(SpoolDrainer::getStats).orElse(Map.of("enabled", false)));
+    }
+    
+    @GetMapping("/connections")
+    public ResponseEntity<List<Map<String, Object>>> getConnectionStats() {
+        return ResponseEntity.ok(mqttInboundPool.getStats());
+    }
+    
+    @GetMapping("/publisher")
+    public ResponseEntity<Map<String, Object>> getPublisherStats() {
+        return ResponseEntity.ok(detectorConfigPublisher.getStats());
+    }
+}
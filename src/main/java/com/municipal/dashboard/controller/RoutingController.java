@@ -0,0 +1,80 @@
+package com.municipal.dashboard.controller;
+
+import com.municipal.dashboard.dto.ClearanceCheckRequest;
+import com.municipal.dashboard.dto.ClearanceCheckResponse;
+import com.municipal.dashboard.service.ClearanceSpatialIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/routing")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class RoutingController {
+    
+    private final ClearanceSpatialIndex clearanceSpatialIndex;
+    
+    @Value("${app.routing.default-corridor-meters:30}")
+    private double defaultCorridorMeters;
+    
+    @Value("${app.routing.max-corridor-meters:2000}")
+    private double maxCorridorMeters;
+    
+    @Value("${app.routing.max-route-points:1000}")
+    private int maxRoutePoints;
+    
+    @PostMapping("/clearance-check")
+    public ResponseEntity<ClearanceCheckResponse> checkRoute(@RequestBody ClearanceCheckRequest request) {
+        long start = System.nanoTime();
+        if (request.getVehicleHeight() == null || !(request.getVehicleHeight() > 0)) {
+            throw new IllegalArgumentException("vehicle_height must be positive");
+        }
+        List<double[]> route = request.getRoute();
+        if (route == null || route.isEmpty()) {
+            throw new IllegalArgumentException("route needs at least one [latitude, longitude] point");
+        }
+        if (route.size() > maxRoutePoints) {
+            throw new IllegalArgumentException("route may have at most " + maxRoutePoints + " points");
+        }
+        for (double[] point : route) {
+            if (point == null || point.length != 2) {
+                throw new IllegalArgumentException("route points must be [latitude, longitude] pairs");
+            }
+            if (!(point[0] >= -90 && point[0] <= 90) || !(point[1] >= -180 && point[1] <= 180)) {
+                throw new IllegalArgumentException("route point [" + point[0] + ", " + point[1]
+                                                   + "] is outside latitude -90..90 or longitude -180..180");
+            }
+        }
+        double corridor = request.getCorridorMeters() != null ? request.getCorridorMeters() : defaultCorridorMeters;
+        if (corridor < 0 || corridor > maxCorridorMeters) {
+            throw new IllegalArgumentException("corridor_meters must be between 0 and " + maxCorridorMeters);
+        }
+        
+        List<ClearanceCheckResponse.BlockingStructure> blocking = clearanceSpatialIndex
+            .findBlocking(route, corridor, request.getVehicleHeight()).stream()
+            .map(match -> ClearanceCheckResponse.BlockingStructure.builder()
+                .deviceId(match.structure().deviceId())
+                .location(match.structure().location())
+                .latitude(match.structure().latitude())
+                .longitude(match.structure().longitude())
+                .clearanceHeight(match.structure().clearanceHeight())
+                .shortfall(match.shortfall())
+                .distanceFromRoute(match.distanceFromRoute())
+                .distanceAlongRoute(match.distanceAlongRoute())
+                .build())
+            .toList();
+        
+        return ResponseEntity.ok(ClearanceCheckResponse.builder()
+            .vehicleHeight(request.getVehicleHeight())
+            .corridorMeters(corridor)
+            .clear(blocking.isEmpty())
+            .blocking(blocking)
+            .structuresIndexed(clearanceSpatialIndex.size())
+            .elapsedMicros((System.nanoTime() - start) / 1_000)
+            .build());
+    }
+}
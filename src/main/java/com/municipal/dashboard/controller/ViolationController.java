@@ -1,14 +1,26 @@
 package com.municipal.dashboard.controller;
 
+import com.municipal.dashboard.dto.BulkViolationUpdateRequest;
+import com.municipal.dashboard.dto.BulkViolationUpdateResponse;
+import com.municipal.dashboard.dto.ReclassificationProgress;
 import com.municipal.dashboard.dto.ViolationResponse;
+import com.municipal.dashboard.model.ViolationSeverity;
+import com.municipal.dashboard.model.ViolationStatus;
+import com.municipal.dashboard.service.StateVersionTracker;
+import com.municipal.dashboard.service.ViolationArchive;
+import com.municipal.dashboard.service.ViolationReclassifier;
+import com.municipal.dashboard.service.ViolationRetentionService;
 import com.municipal.dashboard.service.ViolationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/violations")
@@ -17,10 +29,21 @@ import java.util.List;
 public class ViolationController {
     
     private final ViolationService violationService;
+    private final StateVersionTracker stateVersionTracker;
+    private final ViolationArchive violationArchive;
+    private final ViolationRetentionService violationRetentionService;
+    private final ViolationReclassifier violationReclassifier;
     
     @GetMapping("/pending")
-    public ResponseEntity<List<ViolationResponse>> getPendingViolations() {
-        List<ViolationResponse> violations = violationService.getPendingViolations();
+    public ResponseEntity<List<ViolationResponse>> getPendingViolations(
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        int top = limit != null ? limit : Integer.MAX_VALUE;
+        String etag = StateVersionTracker.etag("violations-pending", stateVersionTracker.getViolationVersion(), top);
+        if (request.checkNotModified(etag, stateVersionTracker.getViolationsLastModified())) {
+            return null;
+        }
+        List<ViolationResponse> violations = violationService.getPendingViolations(top);
         return ResponseEntity.ok(violations);
     }
     
@@ -34,11 +57,19 @@ public class ViolationController {
     @GetMapping
     public ResponseEntity<List<ViolationResponse>> getViolationsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
-        List<ViolationResponse> violations = violationService.getViolationsByDateRange(startDate, endDate);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String deviceId,
+            @RequestParam(required = false) ViolationStatus status,
+            @RequestParam(required = false) ViolationSeverity severity) {
+        List<ViolationResponse> violations = violationService.getViolationHistory(startDate, endDate, deviceId, status, severity);
         return ResponseEntity.ok(violations);
     }
     
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getHistoryCacheStats() {
+        return ResponseEntity.ok(violationService.getHistoryCacheStats());
+    }
+    
     @PutMapping("/{violationId}/acknowledge")
     public ResponseEntity<ViolationResponse> acknowledgeViolation(
             @PathVariable Long violationId,
@@ -46,4 +77,54 @@ public class ViolationController {
         ViolationResponse response = violationService.acknowledgeViolation(violationId, notes);
         return ResponseEntity.ok(response);
     }
+    
+    @GetMapping("/archive")
+    public ResponseEntity<List<ViolationResponse>> getArchivedViolations(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String deviceId,
+            @RequestParam(defaultValue = "10000") int limit) {
+        List<ViolationResponse> violations = violationArchive.query(startDate, endDate, deviceId, limit);
+        return ResponseEntity.ok(violations);
+    }
+    
+    @GetMapping("/archive/stats")
+    public ResponseEntity<Map<String, Object>> getArchiveStats() {
+        return ResponseEntity.ok(violationRetentionService.getStats());
+    }
+    
+    @PostMapping("/archive/run")
+    public ResponseEntity<Map<String, Object>> runRetention() {
+        long archived = violationRetentionService.archiveExpired();
+        return ResponseEntity.ok(Map.of(
+            "archived", archived,
+            "timestamp", LocalDateTime.now().toString()
+        ));
+    }
+    
+    @PostMapping("/bulk/{action}")
+    public ResponseEntity<BulkViolationUpdateResponse> bulkUpdate(
+            @PathVariable String action,
+            @RequestBody BulkViolationUpdateRequest request) {
+        ViolationStatus status = switch (action) {
+            case "acknowledge" -> ViolationStatus.ACKNOWLEDGED;
+            case "resolve" -> ViolationStatus.RESOLVED;
+            case "ignore" -> ViolationStatus.IGNORED;
+            default -> throw new IllegalArgumentException("Unknown bulk action: " + action);
+        };
+        return ResponseEntity.ok(violationService.bulkUpdateStatus(status, request));
+    }
+    
+    // Recomputes excess height and severity from current clearances and severity bands
+    @PostMapping("/reclassify")
+    public ResponseEntity<ReclassificationProgress> reclassify(@RequestParam(required = false) String deviceId) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(violationReclassifier.start(deviceId));
+    }
+    
+    @GetMapping("/reclassify/{jobId}")
+    public ResponseEntity<ReclassificationProgress> getReclassification(@PathVariable Long jobId) {
+        return violationReclassifier.getJob(jobId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
 }
\ No newline at end of file
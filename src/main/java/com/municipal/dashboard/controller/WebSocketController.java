@@ -1,66 +1,52 @@
 package com.municipal.dashboard.controller;
 
-import com.municipal.dashboard.dto.DashboardStats;
-import com.municipal.dashboard.model.ViolationSeverity;
-import com.municipal.dashboard.model.ViolationStatus;
-import com.municipal.dashboard.repository.ViolationRepository;
-import com.municipal.dashboard.service.DetectorService;
+import com.municipal.dashboard.dto.DashboardSnapshot;
+import com.municipal.dashboard.dto.ResumeRequest;
+import com.municipal.dashboard.dto.ResumeResponse;
+import com.municipal.dashboard.service.DashboardSnapshotService;
+import com.municipal.dashboard.service.DashboardStatsService;
+import com.municipal.dashboard.service.WebSocketMessagingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-
 @Controller
 @RequiredArgsConstructor
 @Slf4j
 public class WebSocketController {
     
-    private final ViolationRepository violationRepository;
-    private final DetectorService detectorService;
+    private final DashboardStatsService dashboardStatsService;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final WebSocketMessagingService webSocketMessagingService;
     
+    // Replies go through the messaging service so they carry a sequence like every other /topic message
     @MessageMapping("/dashboard/stats")
-    @SendTo("/topic/stats")
-    public DashboardStats getDashboardStats() {
+    public void getDashboardStats() {
         log.info("WebSocket: Dashboard stats requested");
-        
-        var activeDetectors = detectorService.findAllActive();
-        var inactiveDetectors = detectorService.findInactiveDetectors();
-        
-        Long pendingViolations = violationRepository.countByStatus(ViolationStatus.DETECTED);
-        Long acknowledgedViolations = violationRepository.countByStatus(ViolationStatus.ACKNOWLEDGED);
-        Long totalViolations = violationRepository.count();
-        
-        LocalDateTime startOfDay = LocalDateTime.now().with(LocalTime.MIN);
-        LocalDateTime endOfDay = LocalDateTime.now().with(LocalTime.MAX);
-        Long violationsToday = (long) violationRepository
-            .findByDetectedAtBetween(startOfDay, endOfDay)
-            .size();
-        
-        Long criticalViolations = (long) violationRepository
-            .findBySeverity(ViolationSeverity.CRITICAL)
-            .stream()
-            .filter(v -> v.getStatus() == ViolationStatus.DETECTED)
-            .count();
-        
-        return DashboardStats.builder()
-            .totalDetectors(activeDetectors.size() + inactiveDetectors.size())
-            .activeDetectors(activeDetectors.size())
-            .inactiveDetectors(inactiveDetectors.size())
-            .pendingViolations(pendingViolations)
-            .acknowledgedViolations(acknowledgedViolations)
-            .totalViolations(totalViolations)
-            .violationsToday(violationsToday)
-            .criticalViolations(criticalViolations)
-            .build();
+        webSocketMessagingService.broadcastStatsUpdate(dashboardStatsService.currentStats());
+    }
+    
+    // Subscribing to /app/snapshot returns the current state straight to the subscriber;
+    // clients then apply /topic/* notifications with a higher sequence
+    @SubscribeMapping("/snapshot")
+    public DashboardSnapshot getSnapshot() {
+        log.debug("WebSocket: Dashboard snapshot requested");
+        return dashboardSnapshotService.snapshot();
+    }
+    
+    @MessageMapping("/resume")
+    @SendToUser(destinations = "/queue/resume", broadcast = false)
+    public ResumeResponse resume(@Payload ResumeRequest request) {
+        log.debug("WebSocket: Resume requested from sequence {}", request.getLastSequence());
+        return dashboardSnapshotService.resume(request.getLastSequence());
     }
     
     @MessageMapping("/ping")
-    @SendTo("/topic/pong")
-    public String handlePing() {
-        return "pong";
+    public void handlePing() {
+        webSocketMessagingService.broadcastPong();
     }
-}
\ No newline at end of file
+}
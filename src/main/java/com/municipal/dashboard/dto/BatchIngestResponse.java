@@ -0,0 +1,34 @@
+package com.municipal.dashboard.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchIngestResponse {
+    
+    @JsonProperty("received")
+    private Integer received;
+    
+    @JsonProperty("accepted")
+    private Integer accepted;
+    
+    @JsonProperty("violations")
+    private Integer violations;
+    
+    @JsonProperty("rejected")
+    private Integer rejected;
+    
+    @JsonProperty("elapsed_ms")
+    private Long elapsedMs;
+    
+    @JsonProperty("results")
+    private List<IngestRecordResult> results;
+}
@@ -0,0 +1,37 @@
+package com.municipal.dashboard.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.municipal.dashboard.model.ViolationSeverity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkViolationUpdateRequest {
+    
+    // Either an explicit id list or at least one filter below
+    @JsonProperty("ids")
+    private List<Long> ids;
+    
+    @JsonProperty("device_id")
+    private String deviceId;
+    
+    @JsonProperty("severity")
+    private ViolationSeverity severity;
+    
+    @JsonProperty("from")
+    private LocalDateTime from;
+    
+    @JsonProperty("to")
+    private LocalDateTime to;
+    
+    @JsonProperty("notes")
+    private String notes;
+}
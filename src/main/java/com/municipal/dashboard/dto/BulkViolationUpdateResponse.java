@@ -0,0 +1,29 @@
+package com.municipal.dashboard.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.municipal.dashboard.model.ViolationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkViolationUpdateResponse {
+    
+    @JsonProperty("status")
+    private ViolationStatus status;
+    
+    @JsonProperty("updated")
+    private Integer updated;
+    
+    @JsonProperty("updated_at")
+    private LocalDateTime updatedAt;
+    
+    @JsonProperty("elapsed_ms")
+    private Long elapsedMs;
+}
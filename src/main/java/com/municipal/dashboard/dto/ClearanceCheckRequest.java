@@ -0,0 +1,26 @@
+package com.municipal.dashboard.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClearanceCheckRequest {
+    
+    // Polyline as [latitude, longitude] pairs in travel order
+    @JsonProperty("route")
+    private List<double[]> route;
+    
+    @JsonProperty("corridor_meters")
+    private Double corridorMeters;
+    
+    @JsonProperty("vehicle_height")
+    private Double vehicleHeight;
+}
@@ -0,0 +1,65 @@
+package com.municipal.dashboard.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClearanceCheckResponse {
+    
+    @JsonProperty("vehicle_height")
+    private Double vehicleHeight;
+    
+    @JsonProperty("corridor_meters")
+    private Double corridorMeters;
+    
+    @JsonProperty("clear")
+    private Boolean clear;
+    
+    @JsonProperty("blocking")
+    private List<BlockingStructure> blocking;
+    
+    @JsonProperty("structures_indexed")
+    private Integer structuresIndexed;
+    
+    @JsonProperty("elapsed_micros")
+    private Long elapsedMicros;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BlockingStructure {
+        
+        @JsonProperty("device_id")
+        private String deviceId;
+        
+        @JsonProperty("location")
+        private String location;
+        
+        @JsonProperty("latitude")
+        private Double latitude;
+        
+        @JsonProperty("longitude")
+        private Double longitude;
+        
+        @JsonProperty("clearance_height")
+        private Double clearanceHeight;
+        
+        @JsonProperty("shortfall")
+        private Double shortfall;
+        
+        @JsonProperty("distance_from_route_m")
+        private Double distanceFromRoute;
+        
+        @JsonProperty("distance_along_route_m")
+        private Double distanceAlongRoute;
+    }
+}
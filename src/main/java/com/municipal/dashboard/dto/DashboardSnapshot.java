@@ -0,0 +1,44 @@
+package com.municipal.dashboard.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.municipal.dashboard.model.Detector;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardSnapshot {
+    
+    // State reflects every notification up to this sequence (and possibly some later ones)
+    @JsonProperty("sequence")
+    private Long sequence;
+    
+    @JsonProperty("stats")
+    private DashboardStats stats;
+    
+    @JsonProperty("detectors")
+    private List<Detector> detectors;
+    
+    @JsonProperty("inactive_detectors")
+    private List<Detector> inactiveDetectors;
+    
+    @JsonProperty("pending_violations")
+    private List<ViolationResponse> pendingViolations;
+    
+    // Notifications published since the snapshot was taken; apply them, then follow /topic/*
+    @JsonProperty("deltas")
+    private List<WebSocketNotification> deltas;
+    
+    @JsonProperty("last_sequence")
+    private Long lastSequence;
+    
+    @JsonProperty("generated_at")
+    private LocalDateTime generatedAt;
+}
@@ -0,0 +1,32 @@
+package com.municipal.dashboard.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.municipal.dashboard.model.ReportingMode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DetectorConfigMessage {
+    
+    @JsonProperty("device_id")
+    private String deviceId;
+    
+    @JsonProperty("clearance_height")
+    private Double clearanceHeight;
+    
+    @JsonProperty("reporting_mode")
+    private ReportingMode reportingMode;
+    
+    @JsonProperty("summary_interval_seconds")
+    private Integer summaryIntervalSeconds;
+    
+    @JsonProperty("updated_at")
+    private LocalDateTime updatedAt;
+}
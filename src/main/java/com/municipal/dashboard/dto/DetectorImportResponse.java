@@ -0,0 +1,37 @@
+package com.municipal.dashboard.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DetectorImportResponse {
+    
+    @JsonProperty("received")
+    private Integer received;
+    
+    @JsonProperty("created")
+    private Integer created;
+    
+    @JsonProperty("updated")
+    private Integer updated;
+    
+    @JsonProperty("unchanged")
+    private Integer unchanged;
+    
+    @JsonProperty("rejected")
+    private Integer rejected;
+    
+    @JsonProperty("elapsed_ms")
+    private Long elapsedMs;
+    
+    @JsonProperty("results")
+    private List<DetectorImportResult> results;
+}
@@ -0,0 +1,35 @@
+package com.municipal.dashboard.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DetectorImportResult {
+    
+    @JsonProperty("index")
+    private Integer index;
+    
+    @JsonProperty("device_id")
+    private String deviceId;
+    
+    @JsonProperty("outcome")
+    private Outcome outcome;
+    
+    @JsonProperty("error")
+    private String error;
+    
+    public enum Outcome {
+        CREATED,    // New detector inserted
+        UPDATED,    // Existing detector had location, clearance or description changed
+        UNCHANGED,  // Existing detector already matched the row
+        REJECTED    // Malformed or duplicate row
+    }
+}
@@ -0,0 +1,32 @@
+package com.municipal.dashboard.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DetectorImportRow {
+    
+    @JsonProperty("device_id")
+    private String deviceId;
+    
+    @JsonProperty("location")
+    private String location;
+    
+    @JsonProperty("clearance_height")
+    private Double clearanceHeight;
+    
+    @JsonProperty("description")
+    private String description;
+    
+    @JsonProperty("latitude")
+    private Double latitude;
+    
+    @JsonProperty("longitude")
+    private Double longitude;
+}
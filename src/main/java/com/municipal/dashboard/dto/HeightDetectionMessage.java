@@ -1,5 +1,6 @@
 package com.municipal.dashboard.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
@@ -30,4 +31,11 @@ public class HeightDetectionMessage {
     
     @JsonProperty("temperature")
     private Double temperature;
+    
+    // Tracing only: set on MQTT receive, never serialized and not journaled
+    @JsonIgnore
+    private transient long correlationId;
+    
+    @JsonIgnore
+    private transient long receivedNanos;
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.municipal.dashboard.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotDetector {
+    
+    @JsonProperty("device_id")
+    private String deviceId;
+    
+    @JsonProperty("violations_5m")
+    private Integer violations5m;
+    
+    @JsonProperty("violations_1h")
+    private Integer violations1h;
+    
+    @JsonProperty("violations_24h")
+    private Integer violations24h;
+}
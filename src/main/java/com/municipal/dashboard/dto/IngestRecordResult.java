@@ -0,0 +1,37 @@
+package com.municipal.dashboard.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestRecordResult {
+    
+    @JsonProperty("index")
+    private Integer index;
+    
+    @JsonProperty("device_id")
+    private String deviceId;
+    
+    @JsonProperty("outcome")
+    private Outcome outcome;
+    
+    @JsonProperty("violation_id")
+    private Long violationId;
+    
+    @JsonProperty("error")
+    private String error;
+    
+    public enum Outcome {
+        ACCEPTED,   // Within clearance
+        VIOLATION,  // Recorded as a violation
+        REJECTED    // Malformed or unknown detector
+    }
+}
@@ -0,0 +1,67 @@
+package com.municipal.dashboard.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReclassificationProgress {
+    
+    @JsonProperty("job_id")
+    private Long jobId;
+    
+    @JsonProperty("device_id")
+    private String deviceId;
+    
+    @JsonProperty("status")
+    private Status status;
+    
+    @JsonProperty("severity_bands")
+    private Map<String, Double> severityBands;
+    
+    @JsonProperty("parallelism")
+    private Integer parallelism;
+    
+    @JsonProperty("total_chunks")
+    private Long totalChunks;
+    
+    @JsonProperty("completed_chunks")
+    private Long completedChunks;
+    
+    @JsonProperty("percent_complete")
+    private Double percentComplete;
+    
+    @JsonProperty("clearance_updated")
+    private Long clearanceUpdated;
+    
+    @JsonProperty("severity_changed")
+    private Long severityChanged;
+    
+    @JsonProperty("throttled_ms")
+    private Long throttledMs;
+    
+    @JsonProperty("started_at")
+    private LocalDateTime startedAt;
+    
+    @JsonProperty("completed_at")
+    private LocalDateTime completedAt;
+    
+    @JsonProperty("error")
+    private String error;
+    
+    public enum Status {
+        RUNNING,    // Chunks are being reclassified
+        COMPLETED,  // All chunks done and caches refreshed
+        FAILED      // Stopped on an error; chunks already committed stay reclassified
+    }
+}
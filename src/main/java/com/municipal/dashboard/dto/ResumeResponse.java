@@ -0,0 +1,29 @@
+package com.municipal.dashboard.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumeResponse {
+    
+    // False when the replay buffer no longer covers the gap; snapshot is set instead
+    @JsonProperty("resumed")
+    private Boolean resumed;
+    
+    @JsonProperty("deltas")
+    private List<WebSocketNotification> deltas;
+    
+    @JsonProperty("snapshot")
+    private DashboardSnapshot snapshot;
+    
+    @JsonProperty("last_sequence")
+    private Long lastSequence;
+}
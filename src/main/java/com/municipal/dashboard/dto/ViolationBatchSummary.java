@@ -0,0 +1,38 @@
+package com.municipal.dashboard.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.municipal.dashboard.model.ViolationSeverity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+// Sent instead of the full list for a batch; clients page the rest through /api/violations/pending
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ViolationBatchSummary {
+    
+    @JsonProperty("count")
+    private int count;
+    
+    @JsonProperty("detector_count")
+    private long detectorCount;
+    
+    @JsonProperty("by_severity")
+    private Map<ViolationSeverity, Long> bySeverity;
+    
+    @JsonProperty("first_id")
+    private Long firstId;
+    
+    @JsonProperty("last_id")
+    private Long lastId;
+    
+    // Most severe violations of the batch, largest excess first within a severity
+    @JsonProperty("top")
+    private List<ViolationResponse> top;
+}
@@ -1,5 +1,6 @@
 package com.municipal.dashboard.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -33,12 +34,26 @@ public class WebSocketNotification {
     @JsonProperty("location")
     private String location;
     
+    // Assigned on publish; strictly increasing across all /topic destinations. Left out of the
+    // body until then, so the sequence can be spliced into an already serialized notification
+    @JsonProperty("sequence")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long sequence;
+    
+    @JsonProperty("destination")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String destination;
+    
     public enum NotificationType {
         NEW_VIOLATION,
+        VIOLATION_BATCH,
         VIOLATION_ACK,
+        VIOLATION_BULK_UPDATE,
         DETECTOR_ONLINE,
         DETECTOR_OFFLINE,
         SYSTEM_ALERT,
-        STATS_UPDATE
+        STATS_UPDATE,
+        HOT_DETECTORS,
+        PONG
     }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.municipal.dashboard.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "archive_manifests")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveManifest {
+    
+    // Name of the staged archive file; committed together with the delete of its rows
+    @Id
+    private String fileName;
+    
+    @Column(nullable = false)
+    private Integer violationCount;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -31,6 +31,15 @@ public class Detector {
     
     private String description;
     
+    // WGS84 position of the structure; detectors without one are left out of route checks
+    private Double latitude;
+    
+    private Double longitude;
+    
+    // Null means the server default; pushed to the detector in its retained config message
+    @Enumerated(EnumType.STRING)
+    private ReportingMode reportingMode;
+    
     @Column(nullable = false)
     private Boolean active = true;
     
@@ -0,0 +1,28 @@
+package com.municipal.dashboard.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "event_time_watermarks")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventTimeWatermark {
+    
+    @Id
+    private String deviceId;
+    
+    // Highest event time seen from the device; the watermark trails it by the allowed lateness
+    @Column(nullable = false)
+    private LocalDateTime maxEventTime;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,49 @@
+package com.municipal.dashboard.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "purge_jobs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurgeJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String deviceId;
+    
+    // Kept by id so chunks can be deleted without loading the detector
+    @Column(nullable = false)
+    private Long detectorId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PurgeStatus status;
+    
+    @Column(nullable = false)
+    private Long totalViolations;
+    
+    @Column(nullable = false)
+    private Long deletedViolations;
+    
+    private String error;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+    
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,7 @@
+package com.municipal.dashboard.model;
+
+public enum PurgeStatus {
+    RUNNING,    // Violations are being deleted in chunks
+    COMPLETED,  // Violations and detector removed
+    FAILED      // Stopped on an error; resumed on the next start
+}
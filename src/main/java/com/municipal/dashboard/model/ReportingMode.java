@@ -0,0 +1,6 @@
+package com.municipal.dashboard.model;
+
+public enum ReportingMode {
+    ALL_READINGS,     // Every measurement is published
+    VIOLATIONS_ONLY   // Only violations, plus a periodic summary of the readings in between
+}
@@ -0,0 +1,28 @@
+package com.municipal.dashboard.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "spool_checkpoints")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpoolCheckpoint {
+    
+    @Id
+    private String name;
+    
+    // Highest journal sequence whose effects are committed in this database
+    @Column(nullable = false)
+    private Long lastSequence;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -33,10 +33,10 @@ public class Violation {
     @Column(nullable = false)
     private Double excessHeight;
     
+    // Classified by ViolationService with the configured SeverityBands
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
-    @Builder.Default
-    private ViolationSeverity severity = ViolationSeverity.LOW;
+    private ViolationSeverity severity;
     
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -56,6 +56,11 @@ public class Violation {
     
     @PrePersist
     protected void onCreate() {
+        applyDefaults();
+    }
+    
+    // Also called by bulk writers that insert without going through the persistence context
+    public void applyDefaults() {
         // Set timestamp if not already set
         if (createdAt == null) {
             createdAt = LocalDateTime.now();
@@ -69,19 +74,6 @@ public class Violation {
             excessHeight = detectedHeight - clearanceHeight;
         }
         
-        // Set severity based on excess height
-        if (severity == null && excessHeight != null) {
-            if (excessHeight > 2.0) {
-                severity = ViolationSeverity.CRITICAL;
-            } else if (excessHeight > 1.0) {
-                severity = ViolationSeverity.HIGH;
-            } else if (excessHeight > 0.5) {
-                severity = ViolationSeverity.MEDIUM;
-            } else {
-                severity = ViolationSeverity.LOW;
-            }
-        }
-        
         // Set default status if null
         if (status == null) {
             status = ViolationStatus.DETECTED;
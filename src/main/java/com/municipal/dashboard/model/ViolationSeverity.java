@@ -1,8 +1,9 @@
 package com.municipal.dashboard.model;
 
+// Band limits are configured under app.violation.severity; the defaults are shown
 public enum ViolationSeverity {
     LOW,      // 0-0.5 feet excess
     MEDIUM,   // 0.5-1 feet excess
     HIGH,     // 1-2 feet excess
     CRITICAL  // >2 feet excess
-}
\ No newline at end of file
+}
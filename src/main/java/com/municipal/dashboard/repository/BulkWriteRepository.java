@@ -0,0 +1,27 @@
+package com.municipal.dashboard.repository;
+
+import com.municipal.dashboard.model.Detector;
+import com.municipal.dashboard.model.Violation;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * High-volume writes: ingest violation batches, heartbeat flushes and detector imports. All
+ * methods join the caller's transaction. See BulkWriteConfig for how the backend is chosen.
+ */
+public interface BulkWriteRepository {
+    
+    // Inserts the violations and sets their generated ids; returns the same list
+    List<Violation> insertViolations(List<Violation> violations);
+    
+    int updateHeartbeats(Collection<String> deviceIds, LocalDateTime at);
+    
+    void insertDetectors(List<Detector> detectors);
+    
+    // Location, clearance, description and position of detectors matched by device id
+    void updateDetectors(List<Detector> detectors);
+    
+    String getName();
+}
@@ -0,0 +1,62 @@
+package com.municipal.dashboard.repository;
+
+import com.municipal.dashboard.model.Detector;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * JDBC batch writes for detector imports. IDENTITY keys stop Hibernate from batching
+ * inserts, so bulk onboarding goes straight to the driver instead.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DetectorBatchRepository {
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO detectors (device_id, location, clearance_height, description, latitude, longitude, " +
+        "active, reporting_mode, last_heartbeat, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String UPDATE_SQL =
+        "UPDATE detectors SET location = ?, clearance_height = ?, description = ?, latitude = ?, longitude = ?, " +
+        "updated_at = ? " +
+        "WHERE device_id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Value("${app.detector.import-batch-size:1000}")
+    private int batchSize;
+    
+    public void insertAll(List<Detector> detectors) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, detectors, batchSize, (ps, detector) -> {
+            ps.setString(1, detector.getDeviceId());
+            ps.setString(2, detector.getLocation());
+            ps.setDouble(3, detector.getClearanceHeight());
+            ps.setString(4, detector.getDescription());
+            ps.setObject(5, detector.getLatitude(), Types.DOUBLE);
+            ps.setObject(6, detector.getLongitude(), Types.DOUBLE);
+            ps.setBoolean(7, detector.getActive());
+            ps.setString(8, detector.getReportingMode() != null ? detector.getReportingMode().name() : null);
+            ps.setTimestamp(9, Timestamp.valueOf(detector.getLastHeartbeat()));
+            ps.setTimestamp(10, Timestamp.valueOf(detector.getCreatedAt()));
+            ps.setTimestamp(11, Timestamp.valueOf(detector.getUpdatedAt()));
+        });
+    }
+    
+    public void updateAll(List<Detector> detectors) {
+        jdbcTemplate.batchUpdate(UPDATE_SQL, detectors, batchSize, (ps, detector) -> {
+            ps.setString(1, detector.getLocation());
+            ps.setDouble(2, detector.getClearanceHeight());
+            ps.setString(3, detector.getDescription());
+            ps.setObject(4, detector.getLatitude(), Types.DOUBLE);
+            ps.setObject(5, detector.getLongitude(), Types.DOUBLE);
+            ps.setTimestamp(6, Timestamp.valueOf(detector.getUpdatedAt()));
+            ps.setString(7, detector.getDeviceId());
+        });
+    }
+}
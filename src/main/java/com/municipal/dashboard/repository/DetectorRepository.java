@@ -2,10 +2,12 @@ package com.municipal.dashboard.repository;
 
 import com.municipal.dashboard.model.Detector;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,10 +16,22 @@ public interface DetectorRepository extends JpaRepository<Detector, Long> {
     
     Optional<Detector> findByDeviceId(String deviceId);
     
+    List<Detector> findByDeviceIdIn(Collection<String> deviceIds);
+    
     List<Detector> findByActive(Boolean active);
     
     @Query("SELECT d FROM Detector d WHERE d.lastHeartbeat < :threshold")
     List<Detector> findInactiveDetectors(LocalDateTime threshold);
     
+    @Query("SELECT MIN(d.lastHeartbeat) FROM Detector d WHERE d.lastHeartbeat >= :threshold")
+    LocalDateTime findOldestHeartbeatSince(LocalDateTime threshold);
+    
     boolean existsByDeviceId(String deviceId);
+    
+    @Query("SELECT d.deviceId, d.clearanceHeight FROM Detector d")
+    List<Object[]> findAllClearances();
+    
+    @Modifying
+    @Query("UPDATE Detector d SET d.lastHeartbeat = :at, d.updatedAt = :at WHERE d.deviceId IN :deviceIds")
+    int updateHeartbeats(Collection<String> deviceIds, LocalDateTime at);
 }
\ No newline at end of file
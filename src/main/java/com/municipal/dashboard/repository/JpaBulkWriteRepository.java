@@ -0,0 +1,43 @@
+package com.municipal.dashboard.repository;
+
+import com.municipal.dashboard.model.Detector;
+import com.municipal.dashboard.model.Violation;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// Portable path for H2 and any other database: Hibernate persists plus JDBC batches
+@RequiredArgsConstructor
+public class JpaBulkWriteRepository implements BulkWriteRepository {
+    
+    private final ViolationRepository violationRepository;
+    private final DetectorRepository detectorRepository;
+    private final DetectorBatchRepository detectorBatchRepository;
+    
+    @Override
+    public List<Violation> insertViolations(List<Violation> violations) {
+        return violationRepository.saveAll(violations);
+    }
+    
+    @Override
+    public int updateHeartbeats(Collection<String> deviceIds, LocalDateTime at) {
+        return detectorRepository.updateHeartbeats(deviceIds, at);
+    }
+    
+    @Override
+    public void insertDetectors(List<Detector> detectors) {
+        detectorBatchRepository.insertAll(detectors);
+    }
+    
+    @Override
+    public void updateDetectors(List<Detector> detectors) {
+        detectorBatchRepository.updateAll(detectors);
+    }
+    
+    @Override
+    public String getName() {
+        return "jpa";
+    }
+}
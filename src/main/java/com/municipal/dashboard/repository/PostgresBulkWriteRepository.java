@@ -0,0 +1,239 @@
+package com.municipal.dashboard.repository;
+
+import com.municipal.dashboard.model.Detector;
+import com.municipal.dashboard.model.Violation;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * PostgreSQL path: rows are streamed with COPY, heartbeat flushes are one array-bound UPDATE
+ * and detector updates are one UPDATE joined against unnest(). Violation ids are drawn from the
+ * identity sequence up front so COPY can write them and callers still get ids back.
+ *
+ * Runs on the transaction's connection through JdbcTemplate, so it commits or rolls back
+ * with the surrounding JPA work and SQL errors surface as DataAccessExceptions.
+ */
+@RequiredArgsConstructor
+public class PostgresBulkWriteRepository implements BulkWriteRepository {
+
+    private static final String NEXT_VIOLATION_IDS_SQL =
+        "SELECT nextval(pg_get_serial_sequence('violations', 'id')) FROM generate_series(1, ?)";
+
+    private static final String COPY_VIOLATIONS_SQL =
+        "COPY violations (id, detector_id, detected_height, clearance_height, excess_height, severity, status, " +
+        "notes, detected_at, acknowledged_at, created_at) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String COPY_DETECTORS_SQL =
+        "COPY detectors (device_id, location, clearance_height, description, latitude, longitude, active, " +
+        "reporting_mode, last_heartbeat, created_at, updated_at) FROM STDIN WITH (FORMAT csv)";
+
+    // Matches by device id only, so a detector deleted while the import ran is not recreated
+    private static final String UPDATE_DETECTORS_SQL =
+        "UPDATE detectors d SET location = v.location, clearance_height = v.clearance_height, " +
+        "description = v.description, latitude = v.latitude, longitude = v.longitude, updated_at = v.updated_at " +
+        "FROM unnest(?::text[], ?::text[], ?::float8[], ?::text[], ?::float8[], ?::float8[], ?::timestamp[]) " +
+        "AS v(device_id, location, clearance_height, description, latitude, longitude, updated_at) " +
+        "WHERE d.device_id = v.device_id";
+
+    private static final String UPDATE_HEARTBEATS_SQL =
+        "UPDATE detectors SET last_heartbeat = ?, updated_at = ? WHERE device_id = ANY(?)";
+
+    // COPY data is handed to the driver in chunks of about this size
+    private static final int COPY_CHUNK_CHARS = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Violation> insertViolations(List<Violation> violations) {
+        if (violations.isEmpty()) {
+            return violations;
+        }
+        List<Long> ids = jdbcTemplate.queryForList(NEXT_VIOLATION_IDS_SQL, Long.class, violations.size());
+        for (int i = 0; i < violations.size(); i++) {
+            Violation violation = violations.get(i);
+            violation.applyDefaults();
+            violation.setId(ids.get(i));
+        }
+
+        copy(COPY_VIOLATIONS_SQL, violations, (row, violation) -> {
+            row.value(violation.getId());
+            row.value(violation.getDetector().getId());
+            row.value(violation.getDetectedHeight());
+            row.value(violation.getClearanceHeight());
+            row.value(violation.getExcessHeight());
+            row.value(violation.getSeverity());
+            row.value(violation.getStatus());
+            row.text(violation.getNotes());
+            row.value(violation.getDetectedAt());
+            row.value(violation.getAcknowledgedAt());
+            row.value(violation.getCreatedAt());
+        });
+        return violations;
+    }
+
+    @Override
+    public int updateHeartbeats(Collection<String> deviceIds, LocalDateTime at) {
+        if (deviceIds.isEmpty()) {
+            return 0;
+        }
+        Timestamp timestamp = Timestamp.valueOf(at);
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_HEARTBEATS_SQL)) {
+                statement.setTimestamp(1, timestamp);
+                statement.setTimestamp(2, timestamp);
+                statement.setArray(3, connection.createArrayOf("text", deviceIds.toArray()));
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public void insertDetectors(List<Detector> detectors) {
+        copy(COPY_DETECTORS_SQL, detectors, (row, detector) -> {
+            row.text(detector.getDeviceId());
+            row.text(detector.getLocation());
+            row.value(detector.getClearanceHeight());
+            row.text(detector.getDescription());
+            row.value(detector.getLatitude());
+            row.value(detector.getLongitude());
+            row.value(detector.getActive());
+            row.value(detector.getReportingMode());
+            row.value(detector.getLastHeartbeat());
+            row.value(detector.getCreatedAt());
+            row.value(detector.getUpdatedAt());
+        });
+    }
+
+    @Override
+    public void updateDetectors(List<Detector> detectors) {
+        if (detectors.isEmpty()) {
+            return;
+        }
+        int size = detectors.size();
+        String[] deviceIds = new String[size];
+        String[] locations = new String[size];
+        Double[] clearances = new Double[size];
+        String[] descriptions = new String[size];
+        Double[] latitudes = new Double[size];
+        Double[] longitudes = new Double[size];
+        Timestamp[] updatedAt = new Timestamp[size];
+        for (int i = 0; i < size; i++) {
+            Detector detector = detectors.get(i);
+            deviceIds[i] = detector.getDeviceId();
+            locations[i] = detector.getLocation();
+            clearances[i] = detector.getClearanceHeight();
+            descriptions[i] = detector.getDescription();
+            latitudes[i] = detector.getLatitude();
+            longitudes[i] = detector.getLongitude();
+            updatedAt[i] = Timestamp.valueOf(detector.getUpdatedAt());
+        }
+
+        jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_DETECTORS_SQL)) {
+                statement.setArray(1, connection.createArrayOf("text", deviceIds));
+                statement.setArray(2, connection.createArrayOf("text", locations));
+                statement.setArray(3, connection.createArrayOf("float8", clearances));
+                statement.setArray(4, connection.createArrayOf("text", descriptions));
+                statement.setArray(5, connection.createArrayOf("float8", latitudes));
+                statement.setArray(6, connection.createArrayOf("float8", longitudes));
+                statement.setArray(7, connection.createArrayOf("timestamp", updatedAt));
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public String getName() {
+        return "postgres";
+    }
+
+    private <T> void copy(String sql, List<T> rows, RowWriter<T> writer) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+            try {
+                CsvRow row = new CsvRow();
+                for (T item : rows) {
+                    writer.write(row, item);
+                    row.end();
+                    if (row.length() >= COPY_CHUNK_CHARS) {
+                        row.flushTo(copyIn);
+                    }
+                }
+                row.flushTo(copyIn);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface RowWriter<T> {
+        void write(CsvRow row, T item);
+    }
+
+    // Builds COPY csv rows: an empty unquoted field is NULL, text is always quoted
+    private static final class CsvRow {
+
+        private final StringBuilder buffer = new StringBuilder(COPY_CHUNK_CHARS + 1024);
+        private boolean firstField = true;
+
+        void value(Object value) {
+            separate();
+            if (value instanceof Enum<?> constant) {
+                buffer.append(constant.name());
+            } else if (value != null) {
+                // LocalDateTime prints as ISO-8601, which Postgres reads as a timestamp
+                buffer.append(value);
+            }
+        }
+
+        void text(String value) {
+            separate();
+            if (value != null) {
+                buffer.append('"').append(value.replace("\"", "\"\"")).append('"');
+            }
+        }
+
+        void end() {
+            buffer.append('\n');
+            firstField = true;
+        }
+
+        int length() {
+            return buffer.length();
+        }
+
+        void flushTo(CopyIn copyIn) throws SQLException {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+
+        private void separate() {
+            if (!firstField) {
+                buffer.append(',');
+            }
+            firstField = false;
+        }
+    }
+}
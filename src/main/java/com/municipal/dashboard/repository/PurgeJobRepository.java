@@ -0,0 +1,18 @@
+package com.municipal.dashboard.repository;
+
+import com.municipal.dashboard.model.PurgeJob;
+import com.municipal.dashboard.model.PurgeStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PurgeJobRepository extends JpaRepository<PurgeJob, Long> {
+    
+    List<PurgeJob> findByStatusIn(Collection<PurgeStatus> statuses);
+    
+    Optional<PurgeJob> findFirstByDeviceIdAndStatusIn(String deviceId, Collection<PurgeStatus> statuses);
+}
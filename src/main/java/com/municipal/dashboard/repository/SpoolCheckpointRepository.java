@@ -0,0 +1,9 @@
+package com.municipal.dashboard.repository;
+
+import com.municipal.dashboard.model.SpoolCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SpoolCheckpointRepository extends JpaRepository<SpoolCheckpoint, String> {
+}
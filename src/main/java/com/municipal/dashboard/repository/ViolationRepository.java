@@ -3,11 +3,16 @@ package com.municipal.dashboard.repository;
 import com.municipal.dashboard.model.Violation;
 import com.municipal.dashboard.model.ViolationSeverity;
 import com.municipal.dashboard.model.ViolationStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -21,16 +26,123 @@ public interface ViolationRepository extends JpaRepository<Violation, Long> {
     
     List<Violation> findByDetectedAtBetween(LocalDateTime start, LocalDateTime end);
     
+    long countByDetectedAtBetween(LocalDateTime start, LocalDateTime end);
+    
+    long countBySeverityAndStatus(ViolationSeverity severity, ViolationStatus status);
+    
     @Query("SELECT v FROM Violation v WHERE v.detector.deviceId = :deviceId " +
            "AND v.detectedAt BETWEEN :start AND :end")
     List<Violation> findByDeviceAndDateRange(String deviceId, 
                                              LocalDateTime start, 
                                              LocalDateTime end);
     
+    @Query("SELECT v FROM Violation v JOIN FETCH v.detector d " +
+           "WHERE v.detectedAt BETWEEN :start AND :end " +
+           "AND (:deviceId IS NULL OR d.deviceId = :deviceId) " +
+           "AND (:status IS NULL OR v.status = :status) " +
+           "AND (:severity IS NULL OR v.severity = :severity) " +
+           "ORDER BY v.detectedAt")
+    List<Violation> findHistory(LocalDateTime start,
+                                LocalDateTime end,
+                                String deviceId,
+                                ViolationStatus status,
+                                ViolationSeverity severity);
+    
     @Query("SELECT COUNT(v) FROM Violation v WHERE v.status = :status")
     Long countByStatus(ViolationStatus status);
     
-    @Query("SELECT v FROM Violation v WHERE v.status = 'DETECTED' " +
-           "ORDER BY v.severity DESC, v.detectedAt DESC")
+    // Severity is stored as a string, so rank it explicitly instead of sorting alphabetically
+    @Query("SELECT v FROM Violation v JOIN FETCH v.detector WHERE v.status = 'DETECTED' " +
+           "ORDER BY CASE v.severity " +
+           "WHEN com.municipal.dashboard.model.ViolationSeverity.CRITICAL THEN 4 " +
+           "WHEN com.municipal.dashboard.model.ViolationSeverity.HIGH THEN 3 " +
+           "WHEN com.municipal.dashboard.model.ViolationSeverity.MEDIUM THEN 2 " +
+           "ELSE 1 END DESC, v.detectedAt DESC")
     List<Violation> findPendingViolations();
+    
+    @Query("SELECT MIN(v.detectedAt), MAX(v.detectedAt) FROM Violation v WHERE v.id IN :ids")
+    List<Object[]> findDetectedAtRange(Collection<Long> ids);
+    
+    // Acknowledged time is kept from the first transition so a later resolve does not rewrite it;
+    // callers pass a null acknowledgedAt for RESOLVED and IGNORED, which leaves it as it is
+    @Modifying
+    @Query("UPDATE Violation v SET v.status = :status, " +
+           "v.acknowledgedAt = COALESCE(v.acknowledgedAt, :acknowledgedAt), " +
+           "v.notes = COALESCE(:notes, v.notes) " +
+           "WHERE v.id IN :ids AND v.status IN :fromStatuses")
+    int updateStatusByIds(Collection<Long> ids,
+                          Collection<ViolationStatus> fromStatuses,
+                          ViolationStatus status,
+                          LocalDateTime acknowledgedAt,
+                          String notes);
+    
+    // Ids a filter-based bulk update changes, locked so the update and the pending index eviction
+    // cover exactly these rows; the device is matched through a subquery so its detector row stays unlocked
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v.id FROM Violation v " +
+           "WHERE v.status IN :fromStatuses " +
+           "AND (:deviceId IS NULL OR v.detector.id IN " +
+           "(SELECT d.id FROM Detector d WHERE d.deviceId = :deviceId)) " +
+           "AND (:severity IS NULL OR v.severity = :severity) " +
+           "AND v.detectedAt >= :from AND v.detectedAt <= :to " +
+           "AND v.id > :afterId ORDER BY v.id")
+    List<Long> lockIdsForStatusUpdate(String deviceId,
+                                      ViolationSeverity severity,
+                                      LocalDateTime from,
+                                      LocalDateTime to,
+                                      Collection<ViolationStatus> fromStatuses,
+                                      Long afterId,
+                                      Pageable page);
+    
+    long countByDetectorId(Long detectorId);
+    
+    // Id and detection time of the next chunk to purge; the caller deletes by id
+    @Query("SELECT v.id, v.detectedAt FROM Violation v WHERE v.detector.id = :detectorId ORDER BY v.id")
+    List<Object[]> findPurgeChunk(Long detectorId, Pageable page);
+    
+    @Modifying
+    @Query("DELETE FROM Violation v WHERE v.id IN :ids")
+    int deleteByIdIn(Collection<Long> ids);
+    
+    // Next chunk to archive, locked so a concurrent purge or status change waits for the archive
+    // transaction; only the violations table is locked, not the detectors it references
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v.id FROM Violation v WHERE v.detectedAt < :cutoff AND v.status IN :statuses ORDER BY v.id")
+    List<Long> lockArchiveChunk(LocalDateTime cutoff, Collection<ViolationStatus> statuses, Pageable page);
+    
+    @Query("SELECT v FROM Violation v JOIN FETCH v.detector WHERE v.id IN :ids ORDER BY v.id")
+    List<Violation> findWithDetectorByIdIn(Collection<Long> ids);
+    
+    @Query("SELECT MIN(v.id), MAX(v.id) FROM Violation v WHERE (:detectorId IS NULL OR v.detector.id = :detectorId)")
+    List<Object[]> findIdRange(Long detectorId);
+    
+    // Reclassification, one id range at a time: first take over the detector's current clearance...
+    @Modifying
+    @Query("UPDATE Violation v SET " +
+           "v.clearanceHeight = (SELECT d.clearanceHeight FROM Detector d WHERE d.id = v.detector.id), " +
+           "v.excessHeight = v.detectedHeight - (SELECT d.clearanceHeight FROM Detector d WHERE d.id = v.detector.id) " +
+           "WHERE v.id >= :fromId AND v.id < :toId " +
+           "AND (:detectorId IS NULL OR v.detector.id = :detectorId) " +
+           "AND v.clearanceHeight <> (SELECT d.clearanceHeight FROM Detector d WHERE d.id = v.detector.id)")
+    int updateClearanceInRange(Long fromId, Long toId, Long detectorId);
+    
+    // ...then re-band the excess, touching only rows whose severity actually changes
+    @Modifying
+    @Query("UPDATE Violation v SET v.severity = " +
+           "CASE WHEN v.excessHeight > :critical THEN com.municipal.dashboard.model.ViolationSeverity.CRITICAL " +
+           "WHEN v.excessHeight > :high THEN com.municipal.dashboard.model.ViolationSeverity.HIGH " +
+           "WHEN v.excessHeight > :medium THEN com.municipal.dashboard.model.ViolationSeverity.MEDIUM " +
+           "ELSE com.municipal.dashboard.model.ViolationSeverity.LOW END " +
+           "WHERE v.id >= :fromId AND v.id < :toId " +
+           "AND (:detectorId IS NULL OR v.detector.id = :detectorId) " +
+           "AND v.severity <> CASE WHEN v.excessHeight > :critical THEN com.municipal.dashboard.model.ViolationSeverity.CRITICAL " +
+           "WHEN v.excessHeight > :high THEN com.municipal.dashboard.model.ViolationSeverity.HIGH " +
+           "WHEN v.excessHeight > :medium THEN com.municipal.dashboard.model.ViolationSeverity.MEDIUM " +
+           "ELSE com.municipal.dashboard.model.ViolationSeverity.LOW END")
+    int updateSeverityInRange(Long fromId, Long toId, Long detectorId, double medium, double high, double critical);
+    
+    @Query("SELECT v FROM Violation v JOIN FETCH v.detector WHERE v.id >= :fromId AND v.id < :toId " +
+           "AND (:detectorId IS NULL OR v.detector.id = :detectorId) " +
+           "AND v.status = com.municipal.dashboard.model.ViolationStatus.DETECTED")
+    List<Violation> findPendingInRange(Long fromId, Long toId, Long detectorId);
 }
\ No newline at end of file
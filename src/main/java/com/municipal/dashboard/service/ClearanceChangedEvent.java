@@ -0,0 +1,10 @@
+package com.municipal.dashboard.service;
+
+import java.util.Set;
+
+/**
+ * Published by DetectorService when a write changes the clearance height of existing
+ * detectors; their stored violations were classified against the old clearance.
+ */
+public record ClearanceChangedEvent(Set<String> deviceIds) {
+}
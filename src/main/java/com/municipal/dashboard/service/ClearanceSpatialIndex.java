@@ -0,0 +1,291 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.model.Detector;
+import com.municipal.dashboard.repository.DetectorRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Uniform lat/lon grid over active detectors with coordinates. Each cell holds an immutable
+ * array sorted by clearance, so a query stops scanning a cell at the first structure the
+ * vehicle fits under. Writers swap cell arrays; readers never lock.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClearanceSpatialIndex {
+    
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    private static final Structure[] EMPTY = new Structure[0];
+    private static final Comparator<Structure> BY_CLEARANCE = Comparator
+        .comparingDouble(Structure::clearanceHeight)
+        .thenComparing(Structure::deviceId);
+    
+    private final DetectorRepository detectorRepository;
+    
+    @Value("${app.routing.cell-size-degrees:0.01}")
+    private double cellSize;
+    
+    // Grid cells one query may probe, empty ones included; bounds the work of a single request
+    @Value("${app.routing.max-scanned-cells:200000}")
+    private int maxScannedCells;
+    
+    private final Map<Long, Structure[]> cells = new ConcurrentHashMap<>();
+    private final Map<String, Structure> byDevice = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void load() {
+        List<Detector> detectors = detectorRepository.findByActive(true);
+        Map<Long, List<Structure>> grouped = new HashMap<>();
+        for (Detector detector : detectors) {
+            Structure structure = toStructure(detector);
+            if (structure != null) {
+                byDevice.put(structure.deviceId(), structure);
+                grouped.computeIfAbsent(cellOf(structure.latitude(), structure.longitude()), k -> new ArrayList<>()).add(structure);
+            }
+        }
+        grouped.forEach((cell, list) -> {
+            Structure[] sorted = list.toArray(EMPTY);
+            Arrays.sort(sorted, BY_CLEARANCE);
+            cells.put(cell, sorted);
+        });
+        log.info("Indexed {} structures with coordinates in {} grid cells", byDevice.size(), cells.size());
+    }
+    
+    public void upsert(Detector detector) {
+        upsertAll(List.of(detector));
+    }
+    
+    // Applied after commit; inactive detectors or ones without coordinates leave the index
+    public void upsertAll(Collection<Detector> detectors) {
+        List<Detector> snapshot = List.copyOf(detectors);
+        StateVersionTracker.afterCommit(() -> snapshot.forEach(detector -> {
+            Structure structure = Boolean.FALSE.equals(detector.getActive()) ? null : toStructure(detector);
+            apply(detector.getDeviceId(), structure);
+        }));
+    }
+    
+    public void remove(String deviceId) {
+        StateVersionTracker.afterCommit(() -> apply(deviceId, null));
+    }
+    
+    public int size() {
+        return byDevice.size();
+    }
+    
+    /**
+     * Structures lower than the vehicle within the corridor around the route, ordered by
+     * distance along the route. The route is a list of [latitude, longitude] points; a segment
+     * crossing the antimeridian takes the short way round. Throws IllegalArgumentException when
+     * the corridor would probe more grid cells than app.routing.max-scanned-cells.
+     */
+    public List<Match> findBlocking(List<double[]> route, double corridorMeters, double vehicleHeight) {
+        Map<String, Match> matches = new HashMap<>();
+        long[] scanned = new long[1];
+        double routeOffset = 0;
+        for (int i = 0; i + 1 < route.size(); i++) {
+            double[] from = route.get(i);
+            double[] to = route.get(i + 1);
+            double segmentLength = distanceMeters(from, to);
+            scanSegment(from, to, routeOffset, corridorMeters, vehicleHeight, matches, scanned);
+            routeOffset += segmentLength;
+        }
+        if (route.size() == 1) {
+            scanSegment(route.get(0), route.get(0), 0, corridorMeters, vehicleHeight, matches, scanned);
+        }
+        List<Match> result = new ArrayList<>(matches.values());
+        result.sort(Comparator.comparingDouble(Match::distanceAlongRoute));
+        return result;
+    }
+    
+    private void scanSegment(double[] from, double[] to, double routeOffset, double corridorMeters,
+                             double vehicleHeight, Map<String, Match> matches, long[] scanned) {
+        double deltaLon = wrapLongitude(to[1] - from[1]);
+        double metersPerLon = METERS_PER_DEGREE * Math.cos(Math.toRadians((from[0] + to[0]) / 2));
+        double padLat = corridorMeters / METERS_PER_DEGREE;
+        
+        // Longitude padding follows the parallel closest to the pole the corridor reaches; once the
+        // corridor reaches a pole every longitude is within it
+        double poleward = Math.max(Math.abs(from[0]), Math.abs(to[0])) + padLat;
+        double padLon = poleward >= 90 ? 180 : Math.min(180, corridorMeters / (METERS_PER_DEGREE * Math.cos(Math.toRadians(poleward))));
+        
+        // Long segments are walked in cell-sized steps so the scanned cells hug the line
+        int steps = Math.max(1, (int) Math.ceil(Math.max(Math.abs(to[0] - from[0]), Math.abs(deltaLon)) / cellSize));
+        Set<Long> visited = new HashSet<>();
+        for (int step = 0; step < steps; step++) {
+            double t0 = (double) step / steps;
+            double t1 = (double) (step + 1) / steps;
+            double lat0 = from[0] + (to[0] - from[0]) * t0;
+            double lat1 = from[0] + (to[0] - from[0]) * t1;
+            double lon0 = from[1] + deltaLon * t0;
+            double lon1 = from[1] + deltaLon * t1;
+            
+            int minRow = row(Math.max(-90, Math.min(lat0, lat1) - padLat));
+            int maxRow = row(Math.min(90, Math.max(lat0, lat1) + padLat));
+            double west = Math.min(lon0, lon1) - padLon;
+            double east = Math.max(lon0, lon1) + padLon;
+            for (double[] span : longitudeSpans(west, east)) {
+                int minCol = col(span[0]);
+                int maxCol = col(span[1]);
+                long boxCells = (long) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+                charge(scanned, Math.min(boxCells, cells.size()));
+                if (boxCells > cells.size()) {
+                    // Cheaper to filter the occupied cells than to probe a box mostly made of empty ones
+                    for (Map.Entry<Long, Structure[]> entry : cells.entrySet()) {
+                        long cell = entry.getKey();
+                        int r = (int) (cell >> 32);
+                        int c = (int) cell;
+                        if (r >= minRow && r <= maxRow && c >= minCol && c <= maxCol) {
+                            scanCell(cell, entry.getValue(), visited, from, deltaLon, to, metersPerLon,
+                                     routeOffset, corridorMeters, vehicleHeight, matches);
+                        }
+                    }
+                    continue;
+                }
+                for (int r = minRow; r <= maxRow; r++) {
+                    for (int c = minCol; c <= maxCol; c++) {
+                        long cell = key(r, c);
+                        scanCell(cell, cells.get(cell), visited, from, deltaLon, to, metersPerLon,
+                                 routeOffset, corridorMeters, vehicleHeight, matches);
+                    }
+                }
+            }
+        }
+    }
+    
+    private void charge(long[] scanned, long probes) {
+        scanned[0] += probes;
+        if (scanned[0] > maxScannedCells) {
+            throw new IllegalArgumentException("Route corridor covers more than " + maxScannedCells + " grid cells");
+        }
+    }
+    
+    private void scanCell(long cell, Structure[] structures, Set<Long> visited,
+                          double[] from, double deltaLon, double[] to, double metersPerLon, double routeOffset,
+                          double corridorMeters, double vehicleHeight, Map<String, Match> matches) {
+        if (structures == null || !visited.add(cell)) {
+            return;
+        }
+        for (Structure structure : structures) {
+            if (structure.clearanceHeight() >= vehicleHeight) {
+                break;
+            }
+            checkStructure(structure, from, deltaLon, to, metersPerLon, routeOffset, corridorMeters, vehicleHeight, matches);
+        }
+    }
+    
+    private void checkStructure(Structure structure, double[] from, double deltaLon, double[] to, double metersPerLon,
+                                double routeOffset, double corridorMeters, double vehicleHeight,
+                                Map<String, Match> matches) {
+        // Local equirectangular projection around the segment; accurate to well under a corridor width
+        double bx = deltaLon * metersPerLon;
+        double by = (to[0] - from[0]) * METERS_PER_DEGREE;
+        double px = wrapLongitude(structure.longitude() - from[1]) * metersPerLon;
+        double py = (structure.latitude() - from[0]) * METERS_PER_DEGREE;
+        double lengthSquared = bx * bx + by * by;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, (px * bx + py * by) / lengthSquared));
+        double dx = px - t * bx;
+        double dy = py - t * by;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        if (distance > corridorMeters) {
+            return;
+        }
+        Match match = new Match(structure, distance, routeOffset + t * Math.sqrt(lengthSquared),
+                                vehicleHeight - structure.clearanceHeight());
+        matches.merge(structure.deviceId(), match,
+            (a, b) -> a.distanceFromRoute() <= b.distanceFromRoute() ? a : b);
+    }
+    
+    private synchronized void apply(String deviceId, Structure structure) {
+        Structure previous = structure != null ? byDevice.put(deviceId, structure) : byDevice.remove(deviceId);
+        if (previous != null) {
+            long cell = cellOf(previous.latitude(), previous.longitude());
+            Structure[] current = cells.getOrDefault(cell, EMPTY);
+            Structure[] without = Arrays.stream(current)
+                .filter(s -> !s.deviceId().equals(deviceId))
+                .toArray(Structure[]::new);
+            if (without.length == 0) {
+                cells.remove(cell);
+            } else {
+                cells.put(cell, without);
+            }
+        }
+        if (structure != null) {
+            long cell = cellOf(structure.latitude(), structure.longitude());
+            Structure[] current = cells.getOrDefault(cell, EMPTY);
+            Structure[] with = Arrays.copyOf(current, current.length + 1);
+            with[current.length] = structure;
+            Arrays.sort(with, BY_CLEARANCE);
+            cells.put(cell, with);
+        }
+    }
+    
+    private static Structure toStructure(Detector detector) {
+        if (detector.getLatitude() == null || detector.getLongitude() == null) {
+            return null;
+        }
+        return new Structure(detector.getDeviceId(), detector.getLocation(),
+                             detector.getLatitude(), detector.getLongitude(), detector.getClearanceHeight());
+    }
+    
+    private static double distanceMeters(double[] a, double[] b) {
+        double metersPerLon = METERS_PER_DEGREE * Math.cos(Math.toRadians((a[0] + b[0]) / 2));
+        double dx = wrapLongitude(b[1] - a[1]) * metersPerLon;
+        double dy = (b[0] - a[0]) * METERS_PER_DEGREE;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+    
+    // Into [-180, 180); a difference of two longitudes becomes the shorter way round
+    static double wrapLongitude(double longitude) {
+        return longitude - 360 * Math.floor((longitude + 180) / 360);
+    }
+    
+    // An unwrapped [west, east] interval as at most two intervals within [-180, 180]
+    private static List<double[]> longitudeSpans(double west, double east) {
+        if (east - west >= 360) {
+            return List.of(new double[]{-180, 180});
+        }
+        double start = wrapLongitude(west);
+        double end = start + (east - west);
+        if (end <= 180) {
+            return List.of(new double[]{start, end});
+        }
+        return List.of(new double[]{start, 180}, new double[]{-180, end - 360});
+    }
+    
+    private long cellOf(double latitude, double longitude) {
+        return key(row(latitude), col(wrapLongitude(longitude)));
+    }
+    
+    private int row(double latitude) {
+        return (int) Math.floor(latitude / cellSize);
+    }
+    
+    private int col(double longitude) {
+        return (int) Math.floor(longitude / cellSize);
+    }
+    
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+    
+    public record Structure(String deviceId, String location, double latitude, double longitude, double clearanceHeight) {
+    }
+    
+    public record Match(Structure structure, double distanceFromRoute, double distanceAlongRoute, double shortfall) {
+    }
+}
@@ -0,0 +1,121 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.DashboardSnapshot;
+import com.municipal.dashboard.dto.ResumeResponse;
+import com.municipal.dashboard.dto.WebSocketNotification;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Initial state for dashboard clients, sent when they subscribe, plus resume from a sequence.
+ * The base snapshot is rebuilt at most once per rebuild interval and only while state has
+ * changed; in between, every caller gets the cached base plus the notifications published
+ * since it was taken, so a reconnect storm costs one DB pass instead of one per client.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardSnapshotService {
+
+    private final DashboardStatsService dashboardStatsService;
+    private final DetectorService detectorService;
+    private final PendingViolationIndex pendingViolationIndex;
+    private final StateVersionTracker stateVersionTracker;
+    private final NotificationReplayBuffer replayBuffer;
+
+    @Value("${app.websocket.snapshot-rebuild-interval-ms:1000}")
+    private long rebuildIntervalMs;
+
+    @Value("${app.websocket.snapshot-pending-limit:500}")
+    private int pendingLimit;
+
+    private volatile Base base;
+
+    public DashboardSnapshot snapshot() {
+        Base current = base;
+        Optional<List<WebSocketNotification>> deltas = current != null ? fresh(current) : Optional.empty();
+        if (deltas.isEmpty()) {
+            current = rebuild(current);
+            deltas = replayBuffer.since(current.sequence());
+        }
+
+        List<WebSocketNotification> missed = deltas.orElse(List.of());
+        return DashboardSnapshot.builder()
+            .sequence(current.sequence())
+            .stats(current.snapshot().getStats())
+            .detectors(current.snapshot().getDetectors())
+            .inactiveDetectors(current.snapshot().getInactiveDetectors())
+            .pendingViolations(current.snapshot().getPendingViolations())
+            .deltas(missed)
+            .lastSequence(missed.isEmpty() ? current.sequence() : missed.get(missed.size() - 1).getSequence())
+            .generatedAt(current.snapshot().getGeneratedAt())
+            .build();
+    }
+
+    public ResumeResponse resume(Long lastSequence) {
+        Optional<List<WebSocketNotification>> missed = lastSequence != null
+            ? replayBuffer.since(lastSequence)
+            : Optional.empty();
+        if (missed.isPresent()) {
+            List<WebSocketNotification> deltas = missed.get();
+            return ResumeResponse.builder()
+                .resumed(true)
+                .deltas(deltas)
+                .lastSequence(deltas.isEmpty() ? lastSequence : deltas.get(deltas.size() - 1).getSequence())
+                .build();
+        }
+
+        log.debug("Resume from sequence {} is outside the replay buffer, sending a snapshot", lastSequence);
+        DashboardSnapshot snapshot = snapshot();
+        return ResumeResponse.builder()
+            .resumed(false)
+            .snapshot(snapshot)
+            .lastSequence(snapshot.getLastSequence())
+            .build();
+    }
+
+    // Deltas on top of the cached base, or empty when the base has to be rebuilt
+    private Optional<List<WebSocketNotification>> fresh(Base current) {
+        boolean unchanged = current.detectorVersion() == stateVersionTracker.getDetectorVersion()
+            && current.violationVersion() == stateVersionTracker.getViolationVersion();
+        if (!unchanged && System.currentTimeMillis() - current.builtAt() >= rebuildIntervalMs) {
+            return Optional.empty();
+        }
+        return replayBuffer.since(current.sequence());
+    }
+
+    private synchronized Base rebuild(Base stale) {
+        // Another caller may have rebuilt while this one waited for the lock
+        if (base != stale && base != null && replayBuffer.since(base.sequence()).isPresent()) {
+            return base;
+        }
+
+        // Everything is read after the sequence and versions are captured: the state reflects
+        // at least those notifications, and replaying later ones on top must be idempotent
+        long sequence = replayBuffer.getLastSequence();
+        long detectorVersion = stateVersionTracker.getDetectorVersion();
+        long violationVersion = stateVersionTracker.getViolationVersion();
+        DashboardSnapshot snapshot = DashboardSnapshot.builder()
+            .stats(dashboardStatsService.currentStats())
+            .detectors(detectorService.findAllActive())
+            .inactiveDetectors(detectorService.findInactiveDetectors())
+            .pendingViolations(pendingViolationIndex.top(pendingLimit))
+            .generatedAt(LocalDateTime.now())
+            .build();
+
+        Base rebuilt = new Base(sequence, detectorVersion, violationVersion, System.currentTimeMillis(), snapshot);
+        base = rebuilt;
+        log.debug("Rebuilt dashboard snapshot at sequence {}", sequence);
+        return rebuilt;
+    }
+
+    private record Base(long sequence, long detectorVersion, long violationVersion, long builtAt,
+                        DashboardSnapshot snapshot) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.DashboardStats;
+import com.municipal.dashboard.model.Detector;
+import com.municipal.dashboard.model.ViolationSeverity;
+import com.municipal.dashboard.model.ViolationStatus;
+import com.municipal.dashboard.repository.ViolationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class DashboardStatsService {
+    
+    private final ViolationRepository violationRepository;
+    private final DetectorService detectorService;
+    private final ViolationAggregates violationAggregates;
+    
+    public DashboardStats currentStats() {
+        List<Detector> activeDetectors = detectorService.findAllActive();
+        List<Detector> inactiveDetectors = detectorService.findInactiveDetectors();
+        
+        Long pendingViolations = violationRepository.countByStatus(ViolationStatus.DETECTED);
+        Long acknowledgedViolations = violationRepository.countByStatus(ViolationStatus.ACKNOWLEDGED);
+        Long totalViolations = violationRepository.count();
+        
+        // Event-time aggregate, so late readings count towards the day they happened on
+        Long violationsToday = violationAggregates.violationsOn(LocalDate.now());
+        
+        Long criticalViolations = violationRepository
+            .countBySeverityAndStatus(ViolationSeverity.CRITICAL, ViolationStatus.DETECTED);
+        
+        return DashboardStats.builder()
+            .totalDetectors(activeDetectors.size() + inactiveDetectors.size())
+            .activeDetectors(activeDetectors.size())
+            .inactiveDetectors(inactiveDetectors.size())
+            .pendingViolations(pendingViolations)
+            .acknowledgedViolations(acknowledgedViolations)
+            .totalViolations(totalViolations)
+            .violationsToday(violationsToday)
+            .criticalViolations(criticalViolations)
+            .build();
+    }
+}
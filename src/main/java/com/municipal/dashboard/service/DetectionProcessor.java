@@ -0,0 +1,80 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.HeightDetectionMessage;
+import com.municipal.dashboard.spool.DetectionJournal;
+import com.municipal.dashboard.spool.SpoolRecord;
+import com.municipal.dashboard.tracing.IngestTracing;
+import com.municipal.dashboard.tracing.JournalAppendEvent;
+import com.municipal.dashboard.tracing.ViolationPersistEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+// Last hop of the MQTT ingest path: hands admitted detections to the journal, or straight
+// to the services when the journal is disabled or cannot take the record
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DetectionProcessor {
+    
+    private final ViolationService violationService;
+    private final DetectorService detectorService;
+    private final Optional<DetectionJournal> detectionJournal;
+    private final StartupProbe startupProbe;
+    
+    public void process(SpoolRecord.Type type, HeightDetectionMessage detection) {
+        if (spool(type, detection)) {
+            // SpoolDrainer records the milestone once the record's batch commits
+            return;
+        }
+        ViolationPersistEvent event = new ViolationPersistEvent();
+        event.begin();
+        try (IngestTracing.Scope scope = IngestTracing.open(IngestTracing.Context.message(
+                detection.getDeviceId(), type.name(), detection.getCorrelationId()))) {
+            if (type != SpoolRecord.Type.HEARTBEAT) {
+                violationService.processHeightDetection(detection);
+            }
+            detectorService.updateHeartbeat(detection.getDeviceId());
+            startupProbe.messageProcessed();
+            if (event.shouldCommit()) {
+                event.set(detection.getDeviceId(), type.name(), detection.getCorrelationId());
+                event.commit();
+            }
+            log.debug("{} from {} processed directly", type, detection.getDeviceId());
+        } catch (Exception e) {
+            log.error("Error processing {} for device {}: {}", type, detection.getDeviceId(), e.getMessage(), e);
+        }
+    }
+    
+    public boolean isJournaled() {
+        return detectionJournal.isPresent();
+    }
+    
+    public long getJournalBacklog() {
+        return detectionJournal.map(DetectionJournal::getBacklog).orElse(0L);
+    }
+    
+    private boolean spool(SpoolRecord.Type type, HeightDetectionMessage detection) {
+        if (detectionJournal.isEmpty()) {
+            return false;
+        }
+        JournalAppendEvent event = new JournalAppendEvent();
+        event.begin();
+        try {
+            long sequence = detectionJournal.get().append(type, detection);
+            if (event.shouldCommit()) {
+                event.set(detection.getDeviceId(), type.name(), detection.getCorrelationId());
+                event.setSequence(sequence);
+                event.commit();
+            }
+            log.debug("Spooled {} from {} as #{}", type, detection.getDeviceId(), sequence);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Journal append failed, processing {} from {} directly: {}",
+                      type, detection.getDeviceId(), e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.DetectorConfigMessage;
+import com.municipal.dashboard.model.Detector;
+import com.municipal.dashboard.model.ReportingMode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes each detector's clearance and reporting mode as a retained message on
+ * detector/{deviceId}/config, so a detector picks up its current config on every (re)connect
+ * and can filter readings at the edge instead of sending all of them.
+ * <p>
+ * Publishes wait for the broker's PUBACK and run on a few lanes; a topic always maps to the same
+ * lane, so a device's messages keep their order, and the lanes bound the publishes in flight
+ * below the client's max-inflight. A failed publish is retried with backoff before it is dropped.
+ */
+@Slf4j
+@Component
+public class DetectorConfigPublisher {
+    
+    private final MessageChannel mqttOutboundChannel;
+    private final JsonMapper objectMapper;
+    
+    @Value("${app.detector.default-reporting-mode:VIOLATIONS_ONLY}")
+    private ReportingMode defaultReportingMode;
+    
+    @Value("${app.detector.summary-interval-seconds:60}")
+    private int summaryIntervalSeconds;
+    
+    // Publishes in flight at once; must stay within mqtt.outbound.max-inflight
+    @Value("${mqtt.outbound.publishers:4}")
+    private int publishers;
+    
+    @Value("${mqtt.outbound.retries:5}")
+    private int retries;
+    
+    @Value("${mqtt.outbound.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+    
+    private ExecutorService[] lanes;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    
+    public DetectorConfigPublisher(@Qualifier("mqttOutboundChannel") MessageChannel mqttOutboundChannel,
+                                   JsonMapper objectMapper) {
+        this.mqttOutboundChannel = mqttOutboundChannel;
+        this.objectMapper = objectMapper;
+    }
+    
+    @PostConstruct
+    void createLanes() {
+        lanes = new ExecutorService[Math.max(1, publishers)];
+        for (int i = 0; i < lanes.length; i++) {
+            String name = "mqtt-config-publisher-" + (i + 1);
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+    
+    public ReportingMode effectiveReportingMode(Detector detector) {
+        return detector.getReportingMode() != null ? detector.getReportingMode() : defaultReportingMode;
+    }
+    
+    // Published after commit so a detector never receives config that was rolled back
+    public void publish(Detector detector) {
+        publishAll(List.of(detector));
+    }
+    
+    public void publishAll(Collection<Detector> detectors) {
+        List<DetectorConfigMessage> messages = detectors.stream()
+            .map(detector -> DetectorConfigMessage.builder()
+                .deviceId(detector.getDeviceId())
+                .clearanceHeight(detector.getClearanceHeight())
+                .reportingMode(effectiveReportingMode(detector))
+                .summaryIntervalSeconds(summaryIntervalSeconds)
+                .updatedAt(detector.getUpdatedAt())
+                .build())
+            .toList();
+        StateVersionTracker.afterCommit(() -> messages.forEach(this::send));
+    }
+    
+    // An empty retained payload deletes the retained config on the broker
+    public void clear(String deviceId) {
+        StateVersionTracker.afterCommit(() -> send(topic(deviceId), new byte[0]));
+    }
+    
+    private void send(DetectorConfigMessage message) {
+        try {
+            send(topic(message.getDeviceId()), objectMapper.writeValueAsBytes(message));
+        } catch (JacksonException e) {
+            log.error("Cannot encode config for detector {}: {}", message.getDeviceId(), e.getMessage());
+        }
+    }
+    
+    private void send(String topic, byte[] payload) {
+        queued.incrementAndGet();
+        lanes[Math.floorMod(topic.hashCode(), lanes.length)].execute(() -> {
+            try {
+                publish(topic, payload);
+            } finally {
+                queued.decrementAndGet();
+            }
+        });
+    }
+    
+    private void publish(String topic, byte[] payload) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                mqttOutboundChannel.send(MessageBuilder.withPayload(payload)
+                    .setHeader(MqttHeaders.TOPIC, topic)
+                    .setHeader(MqttHeaders.RETAINED, true)
+                    .setHeader(MqttHeaders.QOS, 1)
+                    .build());
+                published.incrementAndGet();
+                log.debug("Published retained config on {}", topic);
+                return;
+            } catch (Exception e) {
+                if (attempt >= retries) {
+                    // The broker keeps the previous config; the next change or republish corrects it
+                    failed.incrementAndGet();
+                    log.error("Gave up publishing config on {} after {} attempts: {}", topic, attempt + 1, e.getMessage());
+                    return;
+                }
+                retried.incrementAndGet();
+                log.debug("Publishing config on {} failed, retrying: {}", topic, e.getMessage());
+                try {
+                    Thread.sleep(retryBackoffMs << Math.min(attempt, 6));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    failed.incrementAndGet();
+                    return;
+                }
+            }
+        }
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("publishers", lanes.length);
+        stats.put("queued", queued.get());
+        stats.put("published", published.get());
+        stats.put("retries", retried.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+    
+    private static String topic(String deviceId) {
+        return "detector/" + deviceId + "/config";
+    }
+}
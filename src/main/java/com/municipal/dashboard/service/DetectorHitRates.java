@@ -0,0 +1,306 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.HotDetector;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live violation counts per detector over the last 5 minutes, hour and day. Each detector
+ * holds one ring of time buckets per window in an int array; a violation increments a single
+ * bucket, so updates are O(1) and memory is fixed per detector. Readings are bucketed by
+ * event time, late ones still count as long as their bucket is in the ring.
+ *
+ * Each window also keeps a bounded candidate set in the spirit of Space-Saving: a recorded
+ * violation offers its detector with the window's current count, displacing the coldest
+ * candidate once the set is full. top() ranks the candidates by exact counts instead of
+ * scanning every counter. A detector that went quiet after losing its place is missed until
+ * it records again. At max-detectors the coldest counters are evicted to make room for new ones.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@Lazy(false)
+public class DetectorHitRates {
+
+    public static final List<String> WINDOWS = List.of("5m", "1h", "24h");
+
+    // Bucket width and bucket count per window, in the order of WINDOWS
+    private static final long[] BUCKET_MILLIS = {10_000, 60_000, 900_000};
+    private static final int[] BUCKETS = {30, 60, 96};
+    private static final int[] OFFSETS = {0, 30, 90};
+    private static final int SLOTS = 186;
+    private static final long DAY_MILLIS = 86_400_000;
+
+    private final WebSocketMessagingService webSocketMessagingService;
+
+    @Value("${app.hit-rates.max-detectors:50000}")
+    private int maxDetectors;
+
+    @Value("${app.hit-rates.publish-top:10}")
+    private int publishTop;
+
+    // Detectors ranked per window; also the largest limit top() accepts
+    @Value("${app.hit-rates.candidates:256}")
+    private int candidateCapacity;
+
+    // Share of the counters dropped, coldest first, when a new detector arrives at max-detectors
+    @Value("${app.hit-rates.evict-fraction:0.01}")
+    private double evictFraction;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final AtomicLong evicted = new AtomicLong();
+    private Candidates[] candidates;
+    private volatile boolean lastPublishEmpty = true;
+
+    @PostConstruct
+    void createCandidates() {
+        candidates = new Candidates[WINDOWS.size()];
+        for (int w = 0; w < candidates.length; w++) {
+            candidates[w] = new Candidates(candidateCapacity);
+        }
+    }
+
+    public void recordViolation(String deviceId, LocalDateTime detectedAt) {
+        long at = detectedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        StateVersionTracker.afterCommit(() -> record(deviceId, at));
+    }
+
+    void record(String deviceId, long at) {
+        long now = System.currentTimeMillis();
+        if (at < now - DAY_MILLIS) {
+            return;
+        }
+        Counter counter = counters.get(deviceId);
+        if (counter == null) {
+            if (counters.size() >= maxDetectors) {
+                evictColdest(now);
+            }
+            counter = counters.computeIfAbsent(deviceId, id -> new Counter());
+        }
+        int[] totals = counter.increment(Math.min(at, now), now);
+        for (int w = 0; w < candidates.length; w++) {
+            if (totals[w] > 0) {
+                candidates[w].offer(deviceId, totals[w]);
+            }
+        }
+    }
+
+    // Amortized over the arrivals it makes room for; concurrent arrivals wait for one sweep
+    private synchronized void evictColdest(long now) {
+        if (counters.size() < maxDetectors) {
+            return;
+        }
+        int count = Math.max(1, (int) (maxDetectors * evictFraction));
+        // Max-heap on the 24h count, then on the last hit: the head is the warmest of the coldest
+        PriorityQueue<Map.Entry<String, long[]>> coldest = new PriorityQueue<>(
+            Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[0])
+                .thenComparingLong(e -> e.getValue()[1])
+                .reversed());
+        counters.forEach((deviceId, counter) -> {
+            coldest.add(Map.entry(deviceId, new long[]{counter.totals(now)[2], counter.lastHit}));
+            if (coldest.size() > count) {
+                coldest.poll();
+            }
+        });
+        for (Map.Entry<String, long[]> entry : coldest) {
+            counters.remove(entry.getKey());
+            for (Candidates window : candidates) {
+                window.remove(entry.getKey());
+            }
+        }
+        evicted.addAndGet(coldest.size());
+        log.debug("Evicted {} cold detectors from hit-rate tracking", coldest.size());
+    }
+
+    public List<HotDetector> top(String window, int limit) {
+        int w = WINDOWS.indexOf(window);
+        if (w < 0) {
+            throw new IllegalArgumentException("window must be one of " + WINDOWS);
+        }
+        if (limit <= 0 || limit > candidateCapacity) {
+            throw new IllegalArgumentException("limit must be between 1 and " + candidateCapacity);
+        }
+
+        long now = System.currentTimeMillis();
+        // Min-heap on the window's count: the head is the first to go once the heap is over the limit
+        PriorityQueue<Ranked> heap = new PriorityQueue<>(Comparator.comparingInt((Ranked r) -> r.totals()[w])
+            .thenComparing(Ranked::deviceId, Comparator.reverseOrder()));
+        Map<String, Integer> current = new HashMap<>();
+        for (String deviceId : candidates[w].deviceIds()) {
+            Counter counter = counters.get(deviceId);
+            int[] totals = counter != null ? counter.totals(now) : new int[WINDOWS.size()];
+            current.put(deviceId, totals[w]);
+            if (totals[w] == 0) {
+                continue;
+            }
+            heap.add(new Ranked(deviceId, totals));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        // Counts decay as buckets leave the window; stale ones would keep newly hot detectors out
+        candidates[w].refresh(current);
+
+        List<HotDetector> hottest = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            Ranked ranked = heap.poll();
+            hottest.add(0, HotDetector.builder()
+                .deviceId(ranked.deviceId())
+                .violations5m(ranked.totals()[0])
+                .violations1h(ranked.totals()[1])
+                .violations24h(ranked.totals()[2])
+                .build());
+        }
+        return hottest;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tracked_detectors", counters.size());
+        stats.put("max_detectors", maxDetectors);
+        stats.put("evicted_detectors", evicted.get());
+        stats.put("candidates_per_window", candidateCapacity);
+        return stats;
+    }
+
+    // Extends /topic/stats with the hottest detectors per window; idle detectors are dropped
+    @Scheduled(fixedDelayString = "${app.hit-rates.publish-interval-ms:10000}")
+    void publish() {
+        long now = System.currentTimeMillis();
+        counters.entrySet().removeIf(entry -> {
+            if (!entry.getValue().idleSince(now)) {
+                return false;
+            }
+            for (Candidates window : candidates) {
+                window.remove(entry.getKey());
+            }
+            return true;
+        });
+
+        Map<String, List<HotDetector>> hottest = new LinkedHashMap<>();
+        boolean empty = true;
+        for (String window : WINDOWS) {
+            List<HotDetector> top = top(window, publishTop);
+            hottest.put(window, top);
+            empty &= top.isEmpty();
+        }
+        if (empty && lastPublishEmpty) {
+            return;
+        }
+        lastPublishEmpty = empty;
+        webSocketMessagingService.broadcastHotDetectors(hottest);
+    }
+
+    private record Ranked(String deviceId, int[] totals) {
+    }
+
+    // Detector -> window count as of its last record or refresh, at most capacity entries
+    private static final class Candidates {
+
+        private final int capacity;
+        private final Map<String, Integer> counts = new HashMap<>();
+
+        Candidates(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void offer(String deviceId, int count) {
+            if (counts.containsKey(deviceId) || counts.size() < capacity) {
+                counts.put(deviceId, count);
+                return;
+            }
+            // Only detectors outside a full set pay for the scan; hot ones are usually inside
+            String coldest = null;
+            int lowest = Integer.MAX_VALUE;
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                if (entry.getValue() < lowest) {
+                    coldest = entry.getKey();
+                    lowest = entry.getValue();
+                }
+            }
+            if (count > lowest) {
+                counts.remove(coldest);
+                counts.put(deviceId, count);
+            }
+        }
+
+        synchronized List<String> deviceIds() {
+            return new ArrayList<>(counts.keySet());
+        }
+
+        // A detector recorded meanwhile may be set slightly low; its next record corrects it
+        synchronized void refresh(Map<String, Integer> current) {
+            current.forEach((deviceId, count) -> {
+                if (count == 0) {
+                    counts.remove(deviceId);
+                } else {
+                    counts.replace(deviceId, count);
+                }
+            });
+        }
+
+        synchronized void remove(String deviceId) {
+            counts.remove(deviceId);
+        }
+    }
+
+    // Rings for all windows share one counts array; stamps hold the absolute bucket number of each slot
+    private static final class Counter {
+
+        private final int[] counts = new int[SLOTS];
+        private final long[] stamps = new long[SLOTS];
+        private volatile long lastHit;
+
+        // Returns the window totals as of now, including this violation
+        synchronized int[] increment(long at, long now) {
+            for (int w = 0; w < BUCKETS.length; w++) {
+                long bucket = at / BUCKET_MILLIS[w];
+                int slot = OFFSETS[w] + (int) (bucket % BUCKETS[w]);
+                if (stamps[slot] == bucket) {
+                    counts[slot]++;
+                } else if (stamps[slot] < bucket) {
+                    stamps[slot] = bucket;
+                    counts[slot] = 1;
+                }
+                // else: the slot already holds a newer bucket, the reading is too late for this window
+            }
+            lastHit = Math.max(lastHit, at);
+            return totals(now);
+        }
+
+        synchronized int[] totals(long now) {
+            int[] totals = new int[BUCKETS.length];
+            for (int w = 0; w < BUCKETS.length; w++) {
+                long oldest = now / BUCKET_MILLIS[w] - BUCKETS[w] + 1;
+                for (int i = 0; i < BUCKETS[w]; i++) {
+                    int slot = OFFSETS[w] + i;
+                    if (stamps[slot] >= oldest) {
+                        totals[w] += counts[slot];
+                    }
+                }
+            }
+            return totals;
+        }
+
+        boolean idleSince(long now) {
+            return lastHit < now - DAY_MILLIS;
+        }
+    }
+}
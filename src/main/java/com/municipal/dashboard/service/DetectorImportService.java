@@ -0,0 +1,204 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.DetectorImportResponse;
+import com.municipal.dashboard.dto.DetectorImportResult;
+import com.municipal.dashboard.dto.DetectorImportRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DetectorImportService {
+    
+    private final DetectorService detectorService;
+    private final JsonMapper objectMapper;
+    
+    @Value("${app.detector.import-max-rows:50000}")
+    private int maxRows;
+    
+    public DetectorImportResponse importJson(InputStream body) throws IOException {
+        long start = System.currentTimeMillis();
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(body);
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Malformed import: " + e.getOriginalMessage());
+        }
+        if (root == null || !root.isArray()) {
+            throw new IllegalArgumentException("Expected a JSON array of detectors");
+        }
+        checkSize(root.size());
+        
+        List<ParsedRow> rows = new ArrayList<>(root.size());
+        for (JsonNode node : root) {
+            try {
+                rows.add(new ParsedRow(objectMapper.treeToValue(node, DetectorImportRow.class), null));
+            } catch (JacksonException e) {
+                rows.add(new ParsedRow(null, "Malformed row: " + e.getOriginalMessage()));
+            }
+        }
+        return process(rows, start);
+    }
+    
+    // Header row names the columns: device_id, location, clearance_height, description, latitude, longitude
+    public DetectorImportResponse importCsv(InputStream body) throws IOException {
+        long start = System.currentTimeMillis();
+        List<ParsedRow> rows = new ArrayList<>();
+        
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("Missing CSV header");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            List<String> names = splitCsv(header.replace("\uFEFF", ""));
+            for (int i = 0; i < names.size(); i++) {
+                columns.put(names.get(i).trim().toLowerCase(), i);
+            }
+            if (!columns.containsKey("device_id")) {
+                throw new IllegalArgumentException("CSV header must include device_id");
+            }
+            
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                checkSize(rows.size() + 1);
+                List<String> fields = splitCsv(line);
+                try {
+                    rows.add(new ParsedRow(DetectorImportRow.builder()
+                        .deviceId(field(fields, columns, "device_id"))
+                        .location(field(fields, columns, "location"))
+                        .clearanceHeight(number(fields, columns, "clearance_height"))
+                        .description(field(fields, columns, "description"))
+                        .latitude(number(fields, columns, "latitude"))
+                        .longitude(number(fields, columns, "longitude"))
+                        .build(), null));
+                } catch (NumberFormatException e) {
+                    rows.add(new ParsedRow(null, "Malformed number: " + e.getMessage()));
+                }
+            }
+        }
+        return process(rows, start);
+    }
+    
+    private DetectorImportResponse process(List<ParsedRow> rows, long start) {
+        List<DetectorImportRow> valid = new ArrayList<>(rows.size());
+        int[] positions = new int[rows.size()];
+        DetectorImportResult[] results = new DetectorImportResult[rows.size()];
+        
+        for (int i = 0; i < rows.size(); i++) {
+            ParsedRow row = rows.get(i);
+            if (row.row() == null) {
+                results[i] = DetectorImportResult.builder()
+                    .index(i)
+                    .outcome(DetectorImportResult.Outcome.REJECTED)
+                    .error(row.error())
+                    .build();
+            } else {
+                positions[valid.size()] = i;
+                valid.add(row.row());
+            }
+        }
+        
+        List<DetectorImportResult> imported = detectorService.importDetectors(valid);
+        for (int i = 0; i < imported.size(); i++) {
+            DetectorImportResult result = imported.get(i);
+            result.setIndex(positions[i]);
+            results[positions[i]] = result;
+        }
+        
+        int[] counts = new int[DetectorImportResult.Outcome.values().length];
+        for (DetectorImportResult result : results) {
+            counts[result.getOutcome().ordinal()]++;
+        }
+        
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Detector import: {} rows, {} created, {} updated, {} rejected in {} ms",
+                 rows.size(),
+                 counts[DetectorImportResult.Outcome.CREATED.ordinal()],
+                 counts[DetectorImportResult.Outcome.UPDATED.ordinal()],
+                 counts[DetectorImportResult.Outcome.REJECTED.ordinal()],
+                 elapsed);
+        
+        return DetectorImportResponse.builder()
+            .received(rows.size())
+            .created(counts[DetectorImportResult.Outcome.CREATED.ordinal()])
+            .updated(counts[DetectorImportResult.Outcome.UPDATED.ordinal()])
+            .unchanged(counts[DetectorImportResult.Outcome.UNCHANGED.ordinal()])
+            .rejected(counts[DetectorImportResult.Outcome.REJECTED.ordinal()])
+            .elapsedMs(elapsed)
+            .results(Arrays.asList(results))
+            .build();
+    }
+    
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+    
+    private static Double number(List<String> fields, Map<String, Integer> columns, String name) {
+        String value = field(fields, columns, name);
+        return value != null ? Double.valueOf(value) : null;
+    }
+    
+    // RFC 4180 fields on a single line: quoted fields may contain commas and doubled quotes
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+    
+    private void checkSize(int size) {
+        if (size > maxRows) {
+            throw new IllegalArgumentException("Import exceeds the maximum of " + maxRows + " rows");
+        }
+    }
+    
+    private record ParsedRow(DetectorImportRow row, String error) {
+    }
+}
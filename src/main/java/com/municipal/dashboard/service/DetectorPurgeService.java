@@ -0,0 +1,210 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.model.Detector;
+import com.municipal.dashboard.model.PurgeJob;
+import com.municipal.dashboard.model.PurgeStatus;
+import com.municipal.dashboard.repository.PurgeJobRepository;
+import com.municipal.dashboard.repository.ViolationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Deletes a detector's violations in bounded chunks on a background thread. Each chunk
+ * commits with the job's progress, so a restart resumes where the last chunk left off
+ * and no transaction ever holds more than one chunk of row locks.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Lazy(false)
+public class DetectorPurgeService {
+    
+    private static final Set<PurgeStatus> UNFINISHED = EnumSet.of(PurgeStatus.RUNNING, PurgeStatus.FAILED);
+    
+    // Rounds of chunk deletion and detector removal before the job is marked FAILED
+    private static final int MAX_REMOVE_ATTEMPTS = 5;
+    
+    private final PurgeJobRepository purgeJobRepository;
+    private final ViolationRepository violationRepository;
+    private final DetectorService detectorService;
+    private final ViolationAggregates violationAggregates;
+    private final HistoricalQueryCache historicalQueryCache;
+    private final PendingViolationIndex pendingViolationIndex;
+    private final StateVersionTracker stateVersionTracker;
+    private final PlatformTransactionManager transactionManager;
+    
+    @Value("${app.purge.chunk-size:5000}")
+    private int chunkSize;
+    
+    @Value("${app.purge.chunk-pause-ms:50}")
+    private long chunkPauseMs;
+    
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "detector-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // Retiring detectors must be rejected before ingest starts after a restart
+    @PostConstruct
+    void loadUnfinishedJobs() {
+        List<String> deviceIds = purgeJobRepository.findByStatusIn(UNFINISHED).stream()
+            .map(PurgeJob::getDeviceId)
+            .toList();
+        detectorService.markRetiring(deviceIds);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        for (PurgeJob job : purgeJobRepository.findByStatusIn(UNFINISHED)) {
+            log.info("Resuming purge job {} for detector {} ({}/{} violations deleted)",
+                     job.getId(), job.getDeviceId(), job.getDeletedViolations(), job.getTotalViolations());
+            executor.submit(() -> run(job.getId()));
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    @Transactional
+    public PurgeJob startPurge(String deviceId) {
+        Optional<PurgeJob> existing = purgeJobRepository.findFirstByDeviceIdAndStatusIn(deviceId, UNFINISHED);
+        if (existing.isPresent()) {
+            // A repeated delete retries a failed job instead of starting a second one
+            PurgeJob job = existing.get();
+            if (job.getStatus() == PurgeStatus.FAILED) {
+                StateVersionTracker.afterCommit(() -> executor.submit(() -> run(job.getId())));
+            }
+            return job;
+        }
+        
+        Detector detector = detectorService.retireDetector(deviceId);
+        LocalDateTime now = LocalDateTime.now();
+        PurgeJob job = purgeJobRepository.save(PurgeJob.builder()
+            .deviceId(deviceId)
+            .detectorId(detector.getId())
+            .status(PurgeStatus.RUNNING)
+            .totalViolations(violationRepository.countByDetectorId(detector.getId()))
+            .deletedViolations(0L)
+            .createdAt(now)
+            .updatedAt(now)
+            .build());
+        
+        Long jobId = job.getId();
+        StateVersionTracker.afterCommit(() -> executor.submit(() -> run(jobId)));
+        log.info("Started purge job {} for detector {} ({} violations)", jobId, deviceId, job.getTotalViolations());
+        return job;
+    }
+    
+    public Optional<PurgeJob> getJob(Long jobId) {
+        return purgeJobRepository.findById(jobId);
+    }
+    
+    private void run(Long jobId) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        PurgeJob job = purgeJobRepository.findById(jobId).orElse(null);
+        if (job == null || job.getStatus() == PurgeStatus.COMPLETED) {
+            return;
+        }
+        if (job.getStatus() == PurgeStatus.FAILED) {
+            transaction.executeWithoutResult(status -> purgeJobRepository.findById(jobId).ifPresent(current -> {
+                current.setStatus(PurgeStatus.RUNNING);
+                current.setUpdatedAt(LocalDateTime.now());
+                purgeJobRepository.save(current);
+            }));
+        }
+        
+        try {
+            for (int attempt = 1; ; attempt++) {
+                deleteRemainingChunks(transaction, jobId);
+                try {
+                    transaction.executeWithoutResult(status -> {
+                        PurgeJob current = purgeJobRepository.findById(jobId).orElseThrow();
+                        detectorService.removeRetiredDetector(current.getDetectorId(), current.getDeviceId());
+                        current.setStatus(PurgeStatus.COMPLETED);
+                        current.setError(null);
+                        current.setUpdatedAt(LocalDateTime.now());
+                        current.setCompletedAt(LocalDateTime.now());
+                        purgeJobRepository.save(current);
+                    });
+                    break;
+                } catch (DataIntegrityViolationException e) {
+                    // An ingest batch that resolved the detector before it was retired committed
+                    // violations after the last chunk; delete those and try again
+                    if (attempt >= MAX_REMOVE_ATTEMPTS) {
+                        throw e;
+                    }
+                    log.info("Purge job {}: detector {} gained violations during the purge, deleting them (attempt {}/{})",
+                             jobId, job.getDeviceId(), attempt, MAX_REMOVE_ATTEMPTS);
+                }
+            }
+            log.info("Purge job {} completed for detector {}", jobId, job.getDeviceId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Purge job {} interrupted; it resumes on the next start", jobId);
+        } catch (Exception e) {
+            log.error("Purge job {} failed: {}", jobId, e.getMessage());
+            transaction.executeWithoutResult(status -> purgeJobRepository.findById(jobId).ifPresent(current -> {
+                current.setStatus(PurgeStatus.FAILED);
+                current.setError(e.getMessage());
+                current.setUpdatedAt(LocalDateTime.now());
+                purgeJobRepository.save(current);
+            }));
+        }
+    }
+    
+    private void deleteRemainingChunks(TransactionTemplate transaction, Long jobId) throws InterruptedException {
+        int deleted;
+        do {
+            deleted = transaction.execute(status -> deleteChunk(jobId));
+            if (deleted > 0 && chunkPauseMs > 0) {
+                // Leaves room for foreground transactions between chunks
+                Thread.sleep(chunkPauseMs);
+            }
+        } while (deleted > 0);
+    }
+    
+    private int deleteChunk(Long jobId) {
+        PurgeJob job = purgeJobRepository.findById(jobId).orElseThrow();
+        List<Object[]> chunk = violationRepository.findPurgeChunk(job.getDetectorId(), PageRequest.of(0, chunkSize));
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        
+        List<Long> ids = chunk.stream().map(row -> (Long) row[0]).toList();
+        int deleted = violationRepository.deleteByIdIn(ids);
+        pendingViolationIndex.removeAll(ids);
+        violationAggregates.removeViolations(chunk.stream().map(row -> (LocalDateTime) row[1]).toList());
+        historicalQueryCache.invalidateDevice(job.getDeviceId());
+        stateVersionTracker.violationsChanged();
+        
+        job.setDeletedViolations(job.getDeletedViolations() + deleted);
+        job.setUpdatedAt(LocalDateTime.now());
+        purgeJobRepository.save(job);
+        log.debug("Purge job {}: deleted {} violations ({}/{})",
+                  jobId, deleted, job.getDeletedViolations(), job.getTotalViolations());
+        return deleted;
+    }
+}
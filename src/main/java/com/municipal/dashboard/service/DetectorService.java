@@ -1,18 +1,34 @@
 package com.municipal.dashboard.service;
 
+import com.municipal.dashboard.dto.DetectorImportResult;
+import com.municipal.dashboard.dto.DetectorImportRow;
 import com.municipal.dashboard.model.Detector;
-import com.municipal.dashboard.model.Violation;
+import com.municipal.dashboard.model.ReportingMode;
+import com.municipal.dashboard.repository.BulkWriteRepository;
 import com.municipal.dashboard.repository.DetectorRepository;
-import com.municipal.dashboard.repository.ViolationRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -20,8 +36,15 @@ import java.util.Optional;
 public class DetectorService {
     
     private final DetectorRepository detectorRepository;
-    private final ViolationRepository violationRepository;  // ← Added
+    private final BulkWriteRepository bulkWriteRepository;
     private final WebSocketMessagingService webSocketMessagingService;  // ← Added
+    private final StateVersionTracker stateVersionTracker;
+    private final EventTimeTracker eventTimeTracker;
+    private final PendingViolationIndex pendingViolationIndex;
+    private final HistoricalQueryCache historicalQueryCache;
+    private final DetectorConfigPublisher detectorConfigPublisher;
+    private final ClearanceSpatialIndex clearanceSpatialIndex;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Value("${app.violation.height-threshold}")
     private Double defaultClearanceHeight;
@@ -29,8 +52,46 @@ public class DetectorService {
     @Value("${app.detector.heartbeat-timeout}")
     private Integer heartbeatTimeout;
     
+    @Value("${app.detector.republish-config-on-startup:true}")
+    private boolean republishConfigOnStartup;
+    
+    // Last computed inactive list; valid until the detector version moves or the
+    // oldest live heartbeat crosses the timeout
+    private volatile InactiveView inactiveView;
+    
+    // Clearance per device for the ingest hot path. Loaded from the detector table at startup and
+    // kept in step by every write path; unknown devices are never cached
+    private final Map<String, Double> clearanceCache = new ConcurrentHashMap<>();
+    
+    // Keeps the IN list of the existing-detector lookup within driver parameter limits
+    private static final int IMPORT_LOOKUP_CHUNK = 1000;
+    
+    // Detectors with a purge in progress; they are treated as unknown by every ingest path
+    private final Set<String> retiringDevices = ConcurrentHashMap.newKeySet();
+    
+    @PostConstruct
+    void loadClearances() {
+        for (Object[] row : detectorRepository.findAllClearances()) {
+            clearanceCache.put((String) row[0], (Double) row[1]);
+        }
+        log.info("Loaded clearance heights for {} detectors", clearanceCache.size());
+    }
+    
     @Transactional
     public Detector registerDetector(String deviceId, String location, Double clearanceHeight) {
+        return registerDetector(deviceId, location, clearanceHeight, null, null);
+    }
+    
+    @Transactional
+    public Detector registerDetector(String deviceId, String location, Double clearanceHeight,
+                                     Double latitude, Double longitude) {
+        String coordinatesError = validateCoordinates(latitude, longitude);
+        if (coordinatesError != null) {
+            throw new IllegalArgumentException(coordinatesError);
+        }
+        if (isRetiring(deviceId)) {
+            throw new IllegalArgumentException("Detector is being deleted: " + deviceId);
+        }
         Optional<Detector> existing = detectorRepository.findByDeviceId(deviceId);
         
         if (existing.isPresent()) {
@@ -42,34 +103,297 @@ public class DetectorService {
             .deviceId(deviceId)
             .location(location)
             .clearanceHeight(clearanceHeight != null ? clearanceHeight : defaultClearanceHeight)
+            .latitude(latitude)
+            .longitude(longitude)
             .active(true)
             .build();
         
         detector = detectorRepository.save(detector);
+        stateVersionTracker.detectorsChanged();
+        cacheClearance(deviceId, detector.getClearanceHeight());
+        detectorConfigPublisher.publish(detector);
+        clearanceSpatialIndex.upsert(detector);
         log.info("Registered new detector: {} at {}", deviceId, location);
         return detector;
     }
     
+    @Transactional
+    public Detector updateConfig(String deviceId, Double clearanceHeight, ReportingMode reportingMode) {
+        if (clearanceHeight != null && !(clearanceHeight > 0)) {
+            throw new IllegalArgumentException("clearanceHeight must be positive");
+        }
+        Detector detector = findByDeviceId(deviceId)
+            .orElseThrow(() -> new RuntimeException("Detector not found: " + deviceId));
+        
+        boolean clearanceChanged = clearanceHeight != null && !clearanceHeight.equals(detector.getClearanceHeight());
+        if (clearanceHeight != null) {
+            detector.setClearanceHeight(clearanceHeight);
+        }
+        if (reportingMode != null) {
+            detector.setReportingMode(reportingMode);
+        }
+        detector.setUpdatedAt(LocalDateTime.now());
+        detector = detectorRepository.save(detector);
+        stateVersionTracker.detectorsChanged();
+        cacheClearance(deviceId, detector.getClearanceHeight());
+        detectorConfigPublisher.publish(detector);
+        clearanceSpatialIndex.upsert(detector);
+        if (clearanceChanged) {
+            // ViolationReclassifier picks this up after commit
+            eventPublisher.publishEvent(new ClearanceChangedEvent(Set.of(deviceId)));
+        }
+        log.info("Updated config for detector {}: clearance {}, reporting mode {}",
+                 deviceId, detector.getClearanceHeight(), detectorConfigPublisher.effectiveReportingMode(detector));
+        return detector;
+    }
+    
+    // Retained messages survive broker restarts only with broker persistence; republishing is cheap insurance
+    @EventListener(ApplicationReadyEvent.class)
+    public void republishConfigs() {
+        if (!republishConfigOnStartup) {
+            return;
+        }
+        List<Detector> detectors = detectorRepository.findAll().stream()
+            .filter(detector -> !isRetiring(detector.getDeviceId()))
+            .toList();
+        detectorConfigPublisher.publishAll(detectors);
+        log.info("Republished config for {} detectors", detectors.size());
+    }
+    
+    // Upserts by device id: one set-based lookup per chunk, then JDBC batch inserts and updates
+    @Transactional
+    public List<DetectorImportResult> importDetectors(List<DetectorImportRow> rows) {
+        List<DetectorImportResult> results = new ArrayList<>(rows.size());
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            DetectorImportRow row = rows.get(i);
+            DetectorImportResult result = DetectorImportResult.builder()
+                .index(i)
+                .deviceId(row.getDeviceId())
+                .build();
+            results.add(result);
+            String error = validateImportRow(row);
+            if (error == null && !seen.add(row.getDeviceId())) {
+                error = "Duplicate device_id in import";
+            }
+            if (error != null) {
+                result.setOutcome(DetectorImportResult.Outcome.REJECTED);
+                result.setError(error);
+            }
+        }
+        
+        List<String> deviceIds = new ArrayList<>(seen);
+        Map<String, Detector> existing = new HashMap<>(deviceIds.size());
+        for (int from = 0; from < deviceIds.size(); from += IMPORT_LOOKUP_CHUNK) {
+            List<String> chunk = deviceIds.subList(from, Math.min(from + IMPORT_LOOKUP_CHUNK, deviceIds.size()));
+            existing.putAll(findByDeviceIds(chunk));
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<Detector> inserts = new ArrayList<>();
+        List<Detector> updates = new ArrayList<>();
+        Set<String> clearanceChanged = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            DetectorImportResult result = results.get(i);
+            if (result.getOutcome() != null) {
+                continue;
+            }
+            DetectorImportRow row = rows.get(i);
+            Detector detector = existing.get(row.getDeviceId());
+            if (detector == null) {
+                if (row.getLocation() == null || row.getLocation().isBlank()) {
+                    result.setOutcome(DetectorImportResult.Outcome.REJECTED);
+                    result.setError("Missing location for new detector");
+                    continue;
+                }
+                inserts.add(Detector.builder()
+                    .deviceId(row.getDeviceId())
+                    .location(row.getLocation())
+                    .clearanceHeight(row.getClearanceHeight() != null ? row.getClearanceHeight() : defaultClearanceHeight)
+                    .description(row.getDescription())
+                    .latitude(row.getLatitude())
+                    .longitude(row.getLongitude())
+                    .active(true)
+                    .lastHeartbeat(now)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+                result.setOutcome(DetectorImportResult.Outcome.CREATED);
+                continue;
+            }
+            
+            // Absent fields keep the stored value
+            String location = row.getLocation() != null && !row.getLocation().isBlank() ? row.getLocation() : detector.getLocation();
+            Double clearance = row.getClearanceHeight() != null ? row.getClearanceHeight() : detector.getClearanceHeight();
+            String description = row.getDescription() != null ? row.getDescription() : detector.getDescription();
+            Double latitude = row.getLatitude() != null ? row.getLatitude() : detector.getLatitude();
+            Double longitude = row.getLongitude() != null ? row.getLongitude() : detector.getLongitude();
+            if (location.equals(detector.getLocation())
+                    && clearance.equals(detector.getClearanceHeight())
+                    && Objects.equals(description, detector.getDescription())
+                    && Objects.equals(latitude, detector.getLatitude())
+                    && Objects.equals(longitude, detector.getLongitude())) {
+                result.setOutcome(DetectorImportResult.Outcome.UNCHANGED);
+                continue;
+            }
+            if (!clearance.equals(detector.getClearanceHeight())) {
+                clearanceChanged.add(detector.getDeviceId());
+            }
+            updates.add(Detector.builder()
+                .deviceId(detector.getDeviceId())
+                .location(location)
+                .clearanceHeight(clearance)
+                .description(description)
+                .latitude(latitude)
+                .longitude(longitude)
+                .active(detector.getActive())
+                .reportingMode(detector.getReportingMode())
+                .updatedAt(now)
+                .build());
+            result.setOutcome(DetectorImportResult.Outcome.UPDATED);
+        }
+        
+        if (!inserts.isEmpty()) {
+            bulkWriteRepository.insertDetectors(inserts);
+        }
+        if (!updates.isEmpty()) {
+            bulkWriteRepository.updateDetectors(updates);
+        }
+        if (!inserts.isEmpty() || !updates.isEmpty()) {
+            stateVersionTracker.detectorsChanged();
+            StateVersionTracker.afterCommit(() -> {
+                inserts.forEach(detector -> clearanceCache.put(detector.getDeviceId(), detector.getClearanceHeight()));
+                updates.forEach(detector -> clearanceCache.put(detector.getDeviceId(), detector.getClearanceHeight()));
+            });
+            detectorConfigPublisher.publishAll(inserts);
+            detectorConfigPublisher.publishAll(updates);
+            clearanceSpatialIndex.upsertAll(inserts);
+            clearanceSpatialIndex.upsertAll(updates);
+        }
+        if (!clearanceChanged.isEmpty()) {
+            eventPublisher.publishEvent(new ClearanceChangedEvent(clearanceChanged));
+        }
+        log.info("Imported detectors: {} created, {} updated", inserts.size(), updates.size());
+        return results;
+    }
+    
+    private String validateImportRow(DetectorImportRow row) {
+        if (row.getDeviceId() == null || row.getDeviceId().isBlank()) {
+            return "Missing device_id";
+        }
+        if (isRetiring(row.getDeviceId())) {
+            return "Detector is being deleted";
+        }
+        if (row.getClearanceHeight() != null && !(row.getClearanceHeight() > 0)) {
+            return "clearance_height must be positive";
+        }
+        return validateCoordinates(row.getLatitude(), row.getLongitude());
+    }
+    
+    private String validateCoordinates(Double latitude, Double longitude) {
+        if ((latitude == null) != (longitude == null)) {
+            return "latitude and longitude must be given together";
+        }
+        if (latitude != null && (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180)) {
+            return "Coordinates out of range";
+        }
+        return null;
+    }
+    
     @Transactional
     public void updateHeartbeat(String deviceId) {
-        detectorRepository.findByDeviceId(deviceId).ifPresent(detector -> {
+        findByDeviceId(deviceId).ifPresent(detector -> {
             detector.setLastHeartbeat(LocalDateTime.now());
             detectorRepository.save(detector);
+            stateVersionTracker.detectorsChanged();
             log.debug("Updated heartbeat for detector: {}", deviceId);
         });
     }
     
+    @Transactional
+    public void updateHeartbeats(Collection<String> deviceIds) {
+        if (!retiringDevices.isEmpty()) {
+            deviceIds = deviceIds.stream().filter(id -> !isRetiring(id)).toList();
+        }
+        if (deviceIds.isEmpty()) {
+            return;
+        }
+        int updated = bulkWriteRepository.updateHeartbeats(deviceIds, LocalDateTime.now());
+        stateVersionTracker.detectorsChanged();
+        log.debug("Updated heartbeat for {} detectors", updated);
+    }
+    
     public Optional<Detector> findByDeviceId(String deviceId) {
+        if (isRetiring(deviceId)) {
+            return Optional.empty();
+        }
         return detectorRepository.findByDeviceId(deviceId);
     }
     
+    public Optional<Double> getClearanceHeight(String deviceId) {
+        if (isRetiring(deviceId)) {
+            return Optional.empty();
+        }
+        Double clearance = clearanceCache.get(deviceId);
+        if (clearance != null) {
+            return Optional.of(clearance);
+        }
+        // Unknown ids and detectors written by another instance end up here. The lookup runs
+        // outside the map so a slow query never holds up other callers, and misses stay uncached
+        Optional<Double> stored = detectorRepository.findByDeviceId(deviceId).map(Detector::getClearanceHeight);
+        stored.ifPresent(value -> clearanceCache.putIfAbsent(deviceId, value));
+        return stored;
+    }
+    
+    private void cacheClearance(String deviceId, Double clearanceHeight) {
+        StateVersionTracker.afterCommit(() -> clearanceCache.put(deviceId, clearanceHeight));
+    }
+    
+    private void evictClearance(String deviceId) {
+        StateVersionTracker.afterCommit(() -> clearanceCache.remove(deviceId));
+    }
+    
+    public Map<String, Detector> findByDeviceIds(Collection<String> deviceIds) {
+        if (deviceIds.isEmpty()) {
+            return Map.of();
+        }
+        return detectorRepository.findByDeviceIdIn(deviceIds).stream()
+            .filter(detector -> !isRetiring(detector.getDeviceId()))
+            .collect(Collectors.toMap(Detector::getDeviceId, Function.identity()));
+    }
+    
     public List<Detector> findAllActive() {
         return detectorRepository.findByActive(true);
     }
     
     public List<Detector> findInactiveDetectors() {
-        LocalDateTime threshold = LocalDateTime.now().minusSeconds(heartbeatTimeout);
-        return detectorRepository.findInactiveDetectors(threshold);
+        long version = stateVersionTracker.getDetectorVersion();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime threshold = now.minusSeconds(heartbeatTimeout);
+        List<Detector> inactive = detectorRepository.findInactiveDetectors(threshold);
+        
+        if (!isCurrent(inactiveView)) {
+            LocalDateTime oldestLive = detectorRepository.findOldestHeartbeatSince(threshold);
+            LocalDateTime validUntil = oldestLive != null
+                ? oldestLive.plusSeconds(heartbeatTimeout)
+                : LocalDateTime.MAX;
+            inactiveView = new InactiveView(version, validUntil, System.currentTimeMillis());
+        }
+        return inactive;
+    }
+    
+    public Optional<String> currentInactiveDetectorsTag() {
+        InactiveView view = inactiveView;
+        if (!isCurrent(view)) {
+            return Optional.empty();
+        }
+        return Optional.of(StateVersionTracker.etag("detectors-inactive", view.version(), view.computedAt()));
+    }
+    
+    private boolean isCurrent(InactiveView view) {
+        return view != null
+            && view.version() == stateVersionTracker.getDetectorVersion()
+            && LocalDateTime.now().isBefore(view.validUntil());
     }
     
     @Transactional
@@ -77,27 +401,63 @@ public class DetectorService {
         detectorRepository.findByDeviceId(deviceId).ifPresent(detector -> {
             detector.setActive(false);
             detectorRepository.save(detector);
+            stateVersionTracker.detectorsChanged();
+            clearanceSpatialIndex.remove(deviceId);
             log.info("Deactivated detector: {}", deviceId);
         });
     }
     
+    // First step of a delete: the detector stops accepting readings at once, its violations
+    // are purged later in chunks and removeRetiredDetector drops the row
     @Transactional
-    public void deleteDetector(String deviceId) {
+    public Detector retireDetector(String deviceId) {
         Detector detector = detectorRepository.findByDeviceId(deviceId)
             .orElseThrow(() -> new RuntimeException("Detector not found: " + deviceId));
         
-        // Delete all violations associated with this detector
-        List<Violation> violations = violationRepository.findByDetectorDeviceId(deviceId);
-        violationRepository.deleteAll(violations);
+        detector.setActive(false);
+        detector = detectorRepository.save(detector);
+        StateVersionTracker.afterCommit(() -> retiringDevices.add(deviceId));
+        eventTimeTracker.forget(deviceId);
+        pendingViolationIndex.removeIf(v -> deviceId.equals(v.getDeviceId()));
+        clearanceSpatialIndex.remove(deviceId);
+        historicalQueryCache.invalidateDevice(deviceId);
+        evictClearance(deviceId);
+        stateVersionTracker.detectorsChanged();
+        stateVersionTracker.violationsChanged();
         
-        // Delete the detector
-        detectorRepository.delete(detector);
+        log.info("Retiring detector {}", deviceId);
+        return detector;
+    }
+    
+    public void markRetiring(Collection<String> deviceIds) {
+        retiringDevices.addAll(deviceIds);
+        deviceIds.forEach(clearanceCache::remove);
+    }
+    
+    public boolean isRetiring(String deviceId) {
+        return retiringDevices.contains(deviceId);
+    }
+    
+    @Transactional
+    public void removeRetiredDetector(Long detectorId, String deviceId) {
+        detectorRepository.deleteById(detectorId);
+        // Surfaces a violation that still references the detector before anything is published
+        detectorRepository.flush();
+        StateVersionTracker.afterCommit(() -> retiringDevices.remove(deviceId));
+        // Drops entries added after their rows were already purged
+        pendingViolationIndex.removeIf(v -> deviceId.equals(v.getDeviceId()));
+        evictClearance(deviceId);
+        detectorConfigPublisher.clear(deviceId);
+        stateVersionTracker.detectorsChanged();
         
-        log.info("Deleted detector and {} violations: {}", violations.size(), deviceId);
+        log.info("Deleted detector: {}", deviceId);
         
         // Broadcast deletion event (optional)
         webSocketMessagingService.broadcastSystemAlert(
             "Detector " + deviceId + " has been deleted from the system"
         );
     }
+    
+    private record InactiveView(long version, LocalDateTime validUntil, long computedAt) {
+    }
 }
\ No newline at end of file
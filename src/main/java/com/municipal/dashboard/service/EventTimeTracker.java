@@ -0,0 +1,128 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.model.EventTimeWatermark;
+import com.municipal.dashboard.repository.EventTimeWatermarkRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves the event time of a reading from the detector-supplied timestamp and tracks a
+ * per-device watermark (highest event time seen minus the allowed lateness). Readings behind
+ * the watermark are flagged late so callers can route them to the correction path.
+ * <p>
+ * Watermarks that moved are checkpointed to the database every few seconds and reloaded on
+ * startup, so readings replayed or delivered late across a restart are still recognised as late.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Lazy(false)
+public class EventTimeTracker {
+    
+    private final EventTimeWatermarkRepository watermarkRepository;
+    
+    @Value("${app.event-time.allowed-lateness:2m}")
+    private Duration allowedLateness;
+    
+    @Value("${app.event-time.max-clock-skew:30s}")
+    private Duration maxClockSkew;
+    
+    private final Map<String, LocalDateTime> maxEventTimes = new ConcurrentHashMap<>();
+    // Devices whose max event time moved since the last checkpoint
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicLong lateReadings = new AtomicLong();
+    
+    @PostConstruct
+    void loadWatermarks() {
+        watermarkRepository.findAll().forEach(row -> maxEventTimes.put(row.getDeviceId(), row.getMaxEventTime()));
+        log.info("Loaded event-time watermarks for {} devices", maxEventTimes.size());
+    }
+    
+    public EventTime observe(String deviceId, LocalDateTime timestamp) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime eventTime = timestamp != null ? timestamp : now;
+        
+        // A detector clock running ahead must not push its watermark into the future
+        if (eventTime.isAfter(now.plus(maxClockSkew))) {
+            log.debug("Clamping future timestamp {} from device {}", eventTime, deviceId);
+            eventTime = now;
+        }
+        
+        LocalDateTime maxSeen = maxEventTimes.merge(deviceId, eventTime, (a, b) -> a.isAfter(b) ? a : b);
+        if (maxSeen == eventTime) {
+            dirty.add(deviceId);
+        }
+        boolean late = eventTime.isBefore(maxSeen.minus(allowedLateness));
+        if (late) {
+            lateReadings.incrementAndGet();
+            log.debug("Late reading from {}: event time {} is behind watermark {}",
+                      deviceId, eventTime, maxSeen.minus(allowedLateness));
+        }
+        return new EventTime(eventTime, late);
+    }
+    
+    public Optional<LocalDateTime> watermark(String deviceId) {
+        return Optional.ofNullable(maxEventTimes.get(deviceId)).map(max -> max.minus(allowedLateness));
+    }
+    
+    public long getLateReadings() {
+        return lateReadings.get();
+    }
+    
+    // Joins the caller's transaction, so the watermark row goes with the detector
+    public void forget(String deviceId) {
+        maxEventTimes.remove(deviceId);
+        dirty.remove(deviceId);
+        watermarkRepository.deleteById(deviceId);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.event-time.checkpoint-interval-ms:5000}")
+    @PreDestroy
+    public void checkpoint() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<EventTimeWatermark> rows = new ArrayList<>();
+        for (Iterator<String> devices = dirty.iterator(); devices.hasNext(); ) {
+            String deviceId = devices.next();
+            devices.remove();
+            LocalDateTime maxEventTime = maxEventTimes.get(deviceId);
+            if (maxEventTime != null) {
+                rows.add(EventTimeWatermark.builder()
+                    .deviceId(deviceId)
+                    .maxEventTime(maxEventTime)
+                    .updatedAt(now)
+                    .build());
+            }
+        }
+        try {
+            watermarkRepository.saveAll(rows);
+            log.debug("Checkpointed {} event-time watermarks", rows.size());
+        } catch (RuntimeException e) {
+            // Retried with the next checkpoint
+            rows.forEach(row -> dirty.add(row.getDeviceId()));
+            log.warn("Failed to checkpoint {} event-time watermarks: {}", rows.size(), e.getMessage());
+        }
+    }
+    
+    public record EventTime(LocalDateTime timestamp, boolean late) {
+    }
+}
@@ -0,0 +1,147 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.ViolationResponse;
+import com.municipal.dashboard.model.ViolationSeverity;
+import com.municipal.dashboard.model.ViolationStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded LRU cache of violation queries over closed windows (ending before today).
+ * Such windows only change through rare mutations (acknowledge, late readings, detector
+ * deletion), which invalidate exactly the entries whose device and range they touch.
+ */
+@Slf4j
+@Component
+public class HistoricalQueryCache {
+
+    // Rough retained size of one ViolationResponse with its strings
+    private static final long ESTIMATED_BYTES_PER_ROW = 320;
+
+    @Value("${app.query-cache.max-rows:200000}")
+    private long maxRows;
+
+    @Value("${app.query-cache.max-entries:1000}")
+    private int maxEntries;
+
+    // Guarded by this
+    private final LinkedHashMap<Key, List<ViolationResponse>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedRows;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public List<ViolationResponse> get(Key key, Supplier<List<ViolationResponse>> loader) {
+        if (!key.isClosed()) {
+            return loader.get();
+        }
+        long loadGeneration;
+        synchronized (this) {
+            List<ViolationResponse> cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        List<ViolationResponse> loaded = List.copyOf(loader.get());
+        synchronized (this) {
+            // A mutation during the load may have made the result stale; serve it but do not keep it
+            if (generation == loadGeneration && loaded.size() <= maxRows) {
+                List<ViolationResponse> previous = entries.put(key, loaded);
+                cachedRows += loaded.size() - (previous != null ? previous.size() : 0);
+                evictOverflow();
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(String deviceId, LocalDateTime detectedAt) {
+        if (!detectedAt.isBefore(LocalDate.now().atStartOfDay())) {
+            return;
+        }
+        StateVersionTracker.afterCommit(() -> removeIf(key -> key.covers(deviceId, detectedAt)));
+    }
+
+    public void invalidateDevice(String deviceId) {
+        StateVersionTracker.afterCommit(() -> removeIf(key -> key.deviceId() == null || key.deviceId().equals(deviceId)));
+    }
+
+    public void invalidateRange(String deviceId, LocalDateTime from, LocalDateTime to) {
+        StateVersionTracker.afterCommit(() -> removeIf(key -> key.overlaps(deviceId, from, to)));
+    }
+
+    public void clear() {
+        StateVersionTracker.afterCommit(() -> removeIf(key -> true));
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        long lookups = hits + misses;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("cached_rows", cachedRows);
+        stats.put("estimated_bytes", cachedRows * ESTIMATED_BYTES_PER_ROW);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hit_ratio", lookups == 0 ? 0.0 : (double) hits / lookups);
+        stats.put("evictions", evictions);
+        stats.put("invalidations", invalidations);
+        return stats;
+    }
+
+    private synchronized void removeIf(Predicate<Key> predicate) {
+        generation++;
+        Iterator<Map.Entry<Key, List<ViolationResponse>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, List<ViolationResponse>> entry = it.next();
+            if (predicate.test(entry.getKey())) {
+                cachedRows -= entry.getValue().size();
+                invalidations++;
+                it.remove();
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<Key, List<ViolationResponse>>> it = entries.entrySet().iterator();
+        while ((cachedRows > maxRows || entries.size() > maxEntries) && it.hasNext()) {
+            Map.Entry<Key, List<ViolationResponse>> eldest = it.next();
+            cachedRows -= eldest.getValue().size();
+            evictions++;
+            it.remove();
+        }
+    }
+
+    public record Key(String deviceId, LocalDateTime start, LocalDateTime end,
+                      ViolationStatus status, ViolationSeverity severity) {
+
+        boolean isClosed() {
+            return end.isBefore(LocalDate.now().atStartOfDay());
+        }
+
+        boolean covers(String device, LocalDateTime time) {
+            return (deviceId == null || deviceId.equals(device))
+                && !time.isBefore(start) && !time.isAfter(end);
+        }
+
+        boolean overlaps(String device, LocalDateTime from, LocalDateTime to) {
+            return (deviceId == null || device == null || deviceId.equals(device))
+                && (to == null || !start.isAfter(to))
+                && (from == null || !end.isBefore(from));
+        }
+    }
+}
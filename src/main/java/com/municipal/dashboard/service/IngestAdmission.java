@@ -0,0 +1,260 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.HeightDetectionMessage;
+import com.municipal.dashboard.spool.SpoolRecord;
+import com.municipal.dashboard.tracing.AdmissionQueueEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission stage between the MQTT callback and the database. Under pressure heartbeats are
+ * dropped, then sub-clearance height readings; readings above clearance are treated as
+ * violations and are never shed.
+ *
+ * With the journal enabled every message is appended in the MQTT callback, before the broker
+ * gets its QoS 1 ack, and shedding is applied when {@link com.municipal.dashboard.spool.SpoolDrainer}
+ * drains a batch, based on the journal backlog. Without the journal nothing outlives the callback
+ * anyway, so messages wait in per-type in-memory queues and the dispatcher drains violations first.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IngestAdmission implements SmartLifecycle {
+    
+    private final DetectionProcessor detectionProcessor;
+    private final DetectorService detectorService;
+    
+    @Value("${app.admission.violation-capacity:100000}")
+    private int violationCapacity;
+    
+    @Value("${app.admission.height-capacity:50000}")
+    private int heightCapacity;
+    
+    @Value("${app.admission.heartbeat-shed-threshold:10000}")
+    private long heartbeatShedThreshold;
+    
+    @Value("${app.admission.height-shed-threshold:50000}")
+    private long heightShedThreshold;
+    
+    private BlockingQueue<HeightDetectionMessage> violations;
+    private BlockingQueue<HeightDetectionMessage> heights;
+    // Heartbeats coalesce per device: only the newest one per detector is kept
+    private final BlockingQueue<String> heartbeatOrder = new LinkedBlockingQueue<>();
+    private final Map<String, HeightDetectionMessage> pendingHeartbeats = new ConcurrentHashMap<>();
+    private final Semaphore available = new Semaphore(0);
+    
+    private final Map<SpoolRecord.Type, AtomicLong> admitted = counters();
+    private final Map<SpoolRecord.Type, AtomicLong> shed = counters();
+    private final AtomicLong coalescedHeartbeats = new AtomicLong();
+    
+    private volatile boolean running;
+    private Thread dispatcher;
+    
+    public void offer(SpoolRecord.Type type, HeightDetectionMessage detection) throws InterruptedException {
+        if (detectionProcessor.isJournaled()) {
+            // Durable before the callback returns; priority is applied when the journal drains
+            detectionProcessor.process(type, detection);
+            admitted.get(type).incrementAndGet();
+            return;
+        }
+        if (type == SpoolRecord.Type.HEARTBEAT) {
+            offerHeartbeat(detection);
+            return;
+        }
+        
+        if (type == SpoolRecord.Type.VIOLATION || overClearance(detection)) {
+            // Never shed: block the MQTT callback instead and let the broker buffer
+            violations.put(detection);
+            admit(type);
+            return;
+        }
+        
+        if (pressure() >= heightShedThreshold || !heights.offer(detection)) {
+            shed.get(SpoolRecord.Type.HEIGHT).incrementAndGet();
+            return;
+        }
+        admit(type);
+    }
+    
+    // Drain-time shedding for journaled records: returns the ones worth applying at this backlog.
+    // Shed records are still covered by the drainer's checkpoint, they are just not written.
+    public List<SpoolRecord> select(List<SpoolRecord> records, long backlog) {
+        if (backlog < heartbeatShedThreshold && backlog < heightShedThreshold) {
+            return records;
+        }
+        List<SpoolRecord> selected = new ArrayList<>(records.size());
+        for (SpoolRecord record : records) {
+            boolean keep = switch (record.type()) {
+                case VIOLATION -> true;
+                case HEARTBEAT -> backlog < heartbeatShedThreshold;
+                case HEIGHT -> backlog < heightShedThreshold || overClearance(record.message());
+            };
+            if (keep) {
+                selected.add(record);
+            } else {
+                shed.get(record.type()).incrementAndGet();
+            }
+        }
+        return selected;
+    }
+    
+    private boolean overClearance(HeightDetectionMessage detection) {
+        if (detection.getHeight() == null) {
+            return false;
+        }
+        Optional<Double> clearance = detectorService.getClearanceHeight(detection.getDeviceId());
+        return clearance.isPresent() && detection.getHeight() > clearance.get();
+    }
+    
+    private void offerHeartbeat(HeightDetectionMessage heartbeat) {
+        if (pressure() >= heartbeatShedThreshold) {
+            shed.get(SpoolRecord.Type.HEARTBEAT).incrementAndGet();
+            return;
+        }
+        if (pendingHeartbeats.put(heartbeat.getDeviceId(), heartbeat) != null) {
+            coalescedHeartbeats.incrementAndGet();
+            return;
+        }
+        heartbeatOrder.add(heartbeat.getDeviceId());
+        admit(SpoolRecord.Type.HEARTBEAT);
+    }
+    
+    private void admit(SpoolRecord.Type type) {
+        admitted.get(type).incrementAndGet();
+        available.release();
+    }
+    
+    public long pressure() {
+        return violations.size() + heights.size() + heartbeatOrder.size() + detectionProcessor.getJournalBacklog();
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", detectionProcessor.isJournaled() ? "journal" : "memory");
+        stats.put("pressure", pressure());
+        stats.put("queued_violations", violations.size());
+        stats.put("queued_heights", heights.size());
+        stats.put("queued_heartbeats", heartbeatOrder.size());
+        stats.put("journal_backlog", detectionProcessor.getJournalBacklog());
+        stats.put("admitted", snapshot(admitted));
+        stats.put("shed", snapshot(shed));
+        stats.put("coalesced_heartbeats", coalescedHeartbeats.get());
+        return stats;
+    }
+    
+    @PostConstruct
+    void createQueues() {
+        violations = new LinkedBlockingQueue<>(violationCapacity);
+        heights = new LinkedBlockingQueue<>(heightCapacity);
+    }
+    
+    @Override
+    public void start() {
+        running = true;
+        if (detectionProcessor.isJournaled()) {
+            return;
+        }
+        dispatcher = new Thread(this::dispatchLoop, "ingest-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            try {
+                dispatcher.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    // Inbound MQTT endpoints run at Integer.MAX_VALUE / 2; start before and stop after them
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE / 4;
+    }
+    
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                if (!available.tryAcquire(500, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+                HeightDetectionMessage next = violations.poll();
+                if (next != null) {
+                    traceQueueWait(SpoolRecord.Type.VIOLATION, next);
+                    detectionProcessor.process(SpoolRecord.Type.VIOLATION, next);
+                    continue;
+                }
+                next = heights.poll();
+                if (next != null) {
+                    traceQueueWait(SpoolRecord.Type.HEIGHT, next);
+                    detectionProcessor.process(SpoolRecord.Type.HEIGHT, next);
+                    continue;
+                }
+                String deviceId = heartbeatOrder.poll();
+                if (deviceId != null) {
+                    HeightDetectionMessage heartbeat = pendingHeartbeats.remove(deviceId);
+                    if (heartbeat != null) {
+                        traceQueueWait(SpoolRecord.Type.HEARTBEAT, heartbeat);
+                        detectionProcessor.process(SpoolRecord.Type.HEARTBEAT, heartbeat);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ingest dispatcher error: {}", e.getMessage(), e);
+            }
+        }
+    }
+    
+    private static void traceQueueWait(SpoolRecord.Type type, HeightDetectionMessage detection) {
+        AdmissionQueueEvent event = new AdmissionQueueEvent();
+        if (event.isEnabled() && detection.getReceivedNanos() != 0) {
+            event.set(detection.getDeviceId(), type.name(), detection.getCorrelationId());
+            event.setQueueTime(System.nanoTime() - detection.getReceivedNanos());
+            event.commit();
+        }
+    }
+    
+    private static Map<SpoolRecord.Type, AtomicLong> counters() {
+        Map<SpoolRecord.Type, AtomicLong> counters = new EnumMap<>(SpoolRecord.Type.class);
+        for (SpoolRecord.Type type : SpoolRecord.Type.values()) {
+            counters.put(type, new AtomicLong());
+        }
+        return counters;
+    }
+    
+    private static Map<String, Long> snapshot(Map<SpoolRecord.Type, AtomicLong> counters) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        counters.forEach((type, count) -> values.put(type.name().toLowerCase(), count.get()));
+        return values;
+    }
+}
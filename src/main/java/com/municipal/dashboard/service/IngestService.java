@@ -0,0 +1,137 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.BatchIngestResponse;
+import com.municipal.dashboard.dto.HeightDetectionMessage;
+import com.municipal.dashboard.dto.IngestRecordResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IngestService {
+    
+    private final ViolationService violationService;
+    private final JsonMapper objectMapper;
+    
+    @Value("${app.ingest.max-batch-size:50000}")
+    private int maxBatchSize;
+    
+    public BatchIngestResponse ingestNdjson(InputStream body) throws IOException {
+        long start = System.currentTimeMillis();
+        List<ParsedRecord> records = new ArrayList<>();
+        
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                checkSize(records.size() + 1);
+                try {
+                    records.add(new ParsedRecord(objectMapper.readValue(line, HeightDetectionMessage.class), null));
+                } catch (JacksonException e) {
+                    records.add(new ParsedRecord(null, "Malformed record: " + e.getOriginalMessage()));
+                }
+            }
+        }
+        return process(records, start);
+    }
+    
+    public BatchIngestResponse ingestJsonArray(InputStream body) throws IOException {
+        long start = System.currentTimeMillis();
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(body);
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Malformed batch: " + e.getOriginalMessage());
+        }
+        if (root == null || !root.isArray()) {
+            throw new IllegalArgumentException("Expected a JSON array of height detections");
+        }
+        checkSize(root.size());
+        
+        List<ParsedRecord> records = new ArrayList<>(root.size());
+        for (JsonNode node : root) {
+            try {
+                records.add(new ParsedRecord(objectMapper.treeToValue(node, HeightDetectionMessage.class), null));
+            } catch (JacksonException e) {
+                records.add(new ParsedRecord(null, "Malformed record: " + e.getOriginalMessage()));
+            }
+        }
+        return process(records, start);
+    }
+    
+    private BatchIngestResponse process(List<ParsedRecord> records, long start) {
+        List<HeightDetectionMessage> valid = new ArrayList<>(records.size());
+        int[] positions = new int[records.size()];
+        IngestRecordResult[] results = new IngestRecordResult[records.size()];
+        
+        for (int i = 0; i < records.size(); i++) {
+            ParsedRecord record = records.get(i);
+            if (record.message() == null) {
+                results[i] = IngestRecordResult.builder()
+                    .index(i)
+                    .outcome(IngestRecordResult.Outcome.REJECTED)
+                    .error(record.error())
+                    .build();
+            } else {
+                positions[valid.size()] = i;
+                valid.add(record.message());
+            }
+        }
+        
+        List<IngestRecordResult> processed = violationService.processHeightDetections(valid);
+        for (int i = 0; i < processed.size(); i++) {
+            IngestRecordResult result = processed.get(i);
+            result.setIndex(positions[i]);
+            results[positions[i]] = result;
+        }
+        
+        int violations = 0;
+        int accepted = 0;
+        for (IngestRecordResult result : results) {
+            if (result.getOutcome() == IngestRecordResult.Outcome.VIOLATION) {
+                violations++;
+            } else if (result.getOutcome() == IngestRecordResult.Outcome.ACCEPTED) {
+                accepted++;
+            }
+        }
+        
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Batch ingest: {} records, {} violations, {} rejected in {} ms",
+                 records.size(), violations, records.size() - accepted - violations, elapsed);
+        
+        return BatchIngestResponse.builder()
+            .received(records.size())
+            .accepted(accepted)
+            .violations(violations)
+            .rejected(records.size() - accepted - violations)
+            .elapsedMs(elapsed)
+            .results(Arrays.asList(results))
+            .build();
+    }
+    
+    private void checkSize(int size) {
+        if (size > maxBatchSize) {
+            throw new IllegalArgumentException("Batch exceeds the maximum of " + maxBatchSize + " records");
+        }
+    }
+    
+    private record ParsedRecord(HeightDetectionMessage message, String error) {
+    }
+}
@@ -1,29 +1,40 @@
 package com.municipal.dashboard.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.municipal.dashboard.dto.HeightDetectionMessage;
+import com.municipal.dashboard.spool.SpoolRecord;
+import com.municipal.dashboard.tracing.IngestTracing;
+import com.municipal.dashboard.tracing.MqttDecodeEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class MqttMessageHandler {
 
-    private final ViolationService violationService;
-    private final DetectorService detectorService;
-    private final ObjectMapper objectMapper;
+    private final IngestAdmission ingestAdmission;
+    private final JsonMapper objectMapper;
+    private final StartupProbe startupProbe;
 
     public void handleMessage(Message<?> message) {
+        long receivedNanos = System.nanoTime();
+        long correlationId = IngestTracing.nextCorrelationId();
+        startupProbe.messageReceived();
         try {
-            String payload = message.getPayload().toString();
+            // Raw bytes: JSON is parsed straight from them and binary frames are never stringified
+            byte[] payload = message.getPayload() instanceof byte[] bytes
+                ? bytes
+                : message.getPayload().toString().getBytes(StandardCharsets.UTF_8);
             String topic = (String) message.getHeaders().get("mqtt_receivedTopic");
             
             log.info("=== MQTT MESSAGE RECEIVED ===");
-            log.info("Topic: {}", topic);
-            log.info("Payload: {}", payload);
+            log.info("Topic: {} ({} bytes)", topic, payload.length);
             
             if (topic == null) {
                 log.warn("Received message without topic");
@@ -42,17 +53,26 @@ public class MqttMessageHandler {
             
             log.info("Device ID: {}, Message Type: {}", deviceId, messageType);
             
+            if (messageType.equals("readings") || ReadingFrameDecoder.isFrame(payload)) {
+                handleReadingFrame(deviceId, payload, correlationId, receivedNanos);
+                return;
+            }
+            
             switch (messageType) {
                 case "height":
-                    handleHeightDetection(deviceId, payload);
+                    handleHeightDetection(deviceId, payload, correlationId, receivedNanos);
                     break;
                     
                 case "violation":
-                    handleViolationDetection(deviceId, payload);
+                    handleViolationDetection(deviceId, payload, correlationId, receivedNanos);
                     break;
                     
                 case "heartbeat":
-                    handleHeartbeat(deviceId, payload);
+                    handleHeartbeat(deviceId, payload, correlationId, receivedNanos);
+                    break;
+                    
+                case "summary":
+                    handleSummary(deviceId, payload, correlationId, receivedNanos);
                     break;
                     
                 default:
@@ -64,44 +84,110 @@ public class MqttMessageHandler {
         }
     }
     
-    private void handleHeightDetection(String deviceId, String payload) {
+    private void handleHeightDetection(String deviceId, byte[] payload, long correlationId, long receivedNanos) {
         try {
             log.info("Processing height detection for device: {}", deviceId);
-            HeightDetectionMessage detection = objectMapper.readValue(payload, HeightDetectionMessage.class);
+            HeightDetectionMessage detection = decode(deviceId, "height", payload, correlationId, receivedNanos);
             log.info("Height detection from {}: {} ft", deviceId, detection.getHeight());
             
-            violationService.processHeightDetection(detection);
-            detectorService.updateHeartbeat(deviceId);
-            
-            log.info("Height detection processed successfully");
+            ingestAdmission.offer(SpoolRecord.Type.HEIGHT, detection);
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             log.error("Error processing height detection for device {}: {}", deviceId, e.getMessage(), e);
         }
     }
     
-    private void handleViolationDetection(String deviceId, String payload) {
+    private void handleViolationDetection(String deviceId, byte[] payload, long correlationId, long receivedNanos) {
         try {
             log.info("Processing violation for device: {}", deviceId);
-            HeightDetectionMessage detection = objectMapper.readValue(payload, HeightDetectionMessage.class);
+            HeightDetectionMessage detection = decode(deviceId, "violation", payload, correlationId, receivedNanos);
             log.info("Violation detection from {}: {} ft", deviceId, detection.getHeight());
             
-            violationService.processHeightDetection(detection);
-            detectorService.updateHeartbeat(deviceId);
-            
-            log.info("Violation processed successfully");
+            ingestAdmission.offer(SpoolRecord.Type.VIOLATION, detection);
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             log.error("Error processing violation for device {}: {}", deviceId, e.getMessage(), e);
         }
     }
     
-    private void handleHeartbeat(String deviceId, String payload) {
+    private void handleHeartbeat(String deviceId, byte[] payload, long correlationId, long receivedNanos) {
         try {
             log.debug("Processing heartbeat from device: {}", deviceId);
-            detectorService.updateHeartbeat(deviceId);
+            ingestAdmission.offer(SpoolRecord.Type.HEARTBEAT, HeightDetectionMessage.builder()
+                .deviceId(deviceId)
+                .correlationId(correlationId)
+                .receivedNanos(receivedNanos)
+                .build());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             log.error("Error processing heartbeat for device {}: {}", deviceId, e.getMessage(), e);
         }
     }
+    
+    // Binary frames batch several readings per publish; each one takes the same path as a JSON reading
+    private void handleReadingFrame(String deviceId, byte[] payload, long firstCorrelationId, long receivedNanos) {
+        try {
+            MqttDecodeEvent event = new MqttDecodeEvent();
+            event.begin();
+            List<ReadingFrameDecoder.Reading> readings = ReadingFrameDecoder.decode(deviceId, payload);
+            if (event.shouldCommit()) {
+                event.set(deviceId, "readings", firstCorrelationId);
+                event.commit();
+            }
+            log.info("Reading frame from {}: {} readings", deviceId, readings.size());
+            
+            long correlationId = firstCorrelationId;
+            for (ReadingFrameDecoder.Reading reading : readings) {
+                HeightDetectionMessage detection = reading.message();
+                detection.setCorrelationId(correlationId);
+                detection.setReceivedNanos(receivedNanos);
+                ingestAdmission.offer(reading.violation() ? SpoolRecord.Type.VIOLATION : SpoolRecord.Type.HEIGHT, detection);
+                correlationId = IngestTracing.nextCorrelationId();
+            }
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Error processing reading frame for device {}: {}", deviceId, e.getMessage(), e);
+        }
+    }
+    
+    // Detectors in VIOLATIONS_ONLY mode send a summary instead of each sub-clearance reading;
+    // it carries nothing to record, so it only counts as a sign of life
+    private void handleSummary(String deviceId, byte[] payload, long correlationId, long receivedNanos) {
+        try {
+            log.debug("Summary from device {}: {} bytes", deviceId, payload.length);
+            ingestAdmission.offer(SpoolRecord.Type.HEARTBEAT, HeightDetectionMessage.builder()
+                .deviceId(deviceId)
+                .correlationId(correlationId)
+                .receivedNanos(receivedNanos)
+                .build());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Error processing summary for device {}: {}", deviceId, e.getMessage(), e);
+        }
+    }
+    
+    private HeightDetectionMessage decode(String deviceId, String messageType, byte[] payload,
+                                          long correlationId, long receivedNanos) throws Exception {
+        MqttDecodeEvent event = new MqttDecodeEvent();
+        event.begin();
+        HeightDetectionMessage detection = objectMapper.readValue(payload, HeightDetectionMessage.class);
+        if (detection.getDeviceId() == null) {
+            detection.setDeviceId(deviceId);
+        }
+        detection.setCorrelationId(correlationId);
+        detection.setReceivedNanos(receivedNanos);
+        if (event.shouldCommit()) {
+            event.set(detection.getDeviceId(), messageType, correlationId);
+            event.commit();
+        }
+        return detection;
+    }
 }
\ No newline at end of file
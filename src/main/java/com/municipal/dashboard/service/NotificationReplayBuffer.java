@@ -0,0 +1,87 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.WebSocketNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Sequences every notification published on /topic and keeps the most recent ones in a ring,
+ * so a client that missed a few can catch up from its last sequence without a snapshot. The ring
+ * is bounded by count and by the serialized size of what it holds, whichever is hit first.
+ */
+@Component
+public class NotificationReplayBuffer {
+
+    private final WebSocketNotification[] ring;
+    private final int[] sizes;
+    private final long maxBytes;
+
+    // Seeded from the boot time so a sequence held over a restart never looks current
+    private long lastSequence = System.currentTimeMillis() * 1000;
+    private final long firstSequence = lastSequence + 1;
+    private long oldestRetained = firstSequence;
+    private long retainedBytes;
+
+    public NotificationReplayBuffer(@Value("${app.websocket.replay-capacity:4096}") int capacity,
+                                    @Value("${app.websocket.replay-max-bytes:16777216}") long maxBytes) {
+        this.ring = new WebSocketNotification[capacity];
+        this.sizes = new int[capacity];
+        this.maxBytes = maxBytes;
+    }
+
+    // size is the serialized length of the notification; the newest one is kept even if it alone exceeds the budget
+    public synchronized long append(String destination, WebSocketNotification notification, int size) {
+        long sequence = ++lastSequence;
+        notification.setSequence(sequence);
+        notification.setDestination(destination);
+        int slot = slot(sequence);
+        if (ring[slot] != null) {
+            retainedBytes -= sizes[slot];
+        }
+        ring[slot] = notification;
+        sizes[slot] = size;
+        retainedBytes += size;
+        oldestRetained = Math.max(oldestRetained, sequence - ring.length + 1);
+        while (retainedBytes > maxBytes && oldestRetained < sequence) {
+            int oldest = slot(oldestRetained++);
+            retainedBytes -= sizes[oldest];
+            ring[oldest] = null;
+        }
+        return sequence;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Notifications published after {@code sequence}, or empty when some of them have already
+     * left the ring (or the sequence is from another server run) and the caller needs a snapshot.
+     */
+    public synchronized Optional<List<WebSocketNotification>> since(long sequence) {
+        if (sequence > lastSequence || sequence + 1 < oldestRetained) {
+            return Optional.empty();
+        }
+        List<WebSocketNotification> missed = new ArrayList<>((int) (lastSequence - sequence));
+        for (long next = sequence + 1; next <= lastSequence; next++) {
+            missed.add(ring[slot(next)]);
+        }
+        return Optional.of(missed);
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    public synchronized long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % ring.length);
+    }
+}
@@ -0,0 +1,121 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.ViolationResponse;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+/**
+ * In-memory view of DETECTED violations ordered by severity rank, then most recent first.
+ * Changes are applied after commit; reads of the top k cost O(k) and never touch the DB.
+ */
+@Component
+public class PendingViolationIndex {
+    
+    private static final Comparator<Key> ORDER = Comparator
+        .comparingInt(Key::severityRank).reversed()
+        .thenComparing(Key::detectedAt, Comparator.reverseOrder())
+        .thenComparing(Key::id, Comparator.reverseOrder());
+    
+    private final NavigableMap<Key, ViolationResponse> ordered = new ConcurrentSkipListMap<>(ORDER);
+    private final Map<Long, Key> keys = new ConcurrentHashMap<>();
+    
+    public void rebuild(Collection<ViolationResponse> pending) {
+        ordered.clear();
+        keys.clear();
+        pending.forEach(this::put);
+    }
+    
+    public void add(ViolationResponse violation) {
+        StateVersionTracker.afterCommit(() -> put(violation));
+    }
+    
+    public void addAll(Collection<ViolationResponse> violations) {
+        StateVersionTracker.afterCommit(() -> violations.forEach(this::put));
+    }
+    
+    // Refreshes entries still in the index whose clearance or severity differs; an id evicted
+    // meanwhile, for instance by an acknowledgement, is not brought back
+    public void replaceAll(Collection<ViolationResponse> violations) {
+        StateVersionTracker.afterCommit(() -> violations.forEach(this::replace));
+    }
+    
+    public void remove(Long violationId) {
+        StateVersionTracker.afterCommit(() -> evict(violationId));
+    }
+    
+    public void removeAll(Collection<Long> violationIds) {
+        StateVersionTracker.afterCommit(() -> violationIds.forEach(this::evict));
+    }
+    
+    public void removeIf(Predicate<ViolationResponse> predicate) {
+        StateVersionTracker.afterCommit(() -> ordered.values().stream()
+            .filter(predicate)
+            .map(ViolationResponse::getId)
+            .toList()
+            .forEach(this::evict));
+    }
+    
+    public List<ViolationResponse> top(int limit) {
+        List<ViolationResponse> result = new ArrayList<>(Math.min(limit, keys.size()));
+        for (ViolationResponse violation : ordered.values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(violation);
+        }
+        return result;
+    }
+    
+    public int size() {
+        return keys.size();
+    }
+    
+    private void put(ViolationResponse violation) {
+        Key key = keyOf(violation);
+        Key previous = keys.put(violation.getId(), key);
+        if (previous != null) {
+            ordered.remove(previous);
+        }
+        ordered.put(key, violation);
+    }
+    
+    private void replace(ViolationResponse violation) {
+        keys.computeIfPresent(violation.getId(), (id, previous) -> {
+            ViolationResponse current = ordered.get(previous);
+            if (current != null && current.getSeverity() == violation.getSeverity()
+                    && Objects.equals(current.getClearanceHeight(), violation.getClearanceHeight())) {
+                return previous;
+            }
+            Key key = keyOf(violation);
+            ordered.remove(previous);
+            ordered.put(key, violation);
+            return key;
+        });
+    }
+    
+    private void evict(Long violationId) {
+        Key key = keys.remove(violationId);
+        if (key != null) {
+            ordered.remove(key);
+        }
+    }
+    
+    private static Key keyOf(ViolationResponse violation) {
+        return new Key(violation.getSeverity().ordinal(), violation.getDetectedAt(), violation.getId());
+    }
+    
+    // ViolationSeverity is declared from LOW to CRITICAL, so the ordinal is the rank
+    private record Key(int severityRank, LocalDateTime detectedAt, Long id) {
+    }
+}
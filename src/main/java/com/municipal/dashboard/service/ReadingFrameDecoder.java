@@ -0,0 +1,84 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.HeightDetectionMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the compact binary reading frame detectors publish on detector/{id}/readings.
+ * Everything is little-endian; the device id comes from the topic.
+ *
+ * Header (8 bytes): magic "BSDF" | u8 version (1) | u8 reserved | u16 record count
+ * Record (16 bytes): i64 epoch millis | f32 height ft | i16 temperature in 0.01 C
+ * (-32768 = absent) | u8 sensor status | u8 flags (bit 0: above the detector's clearance)
+ */
+public final class ReadingFrameDecoder {
+
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'B', 'S', 'D', 'F'};
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_BYTES = 16;
+    private static final short NO_TEMPERATURE = Short.MIN_VALUE;
+    private static final int FLAG_VIOLATION = 0x01;
+    private static final String[] SENSOR_STATUS = {"OK", "DEGRADED", "ERROR"};
+
+    private ReadingFrameDecoder() {
+    }
+
+    public static boolean isFrame(byte[] payload) {
+        if (payload.length < HEADER_BYTES) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (payload[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static List<Reading> decode(String deviceId, byte[] payload) {
+        if (!isFrame(payload)) {
+            throw new IllegalArgumentException("Not a reading frame");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN);
+        int version = Byte.toUnsignedInt(buffer.get(4));
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported reading frame version " + version);
+        }
+        int count = Short.toUnsignedInt(buffer.getShort(6));
+        if (payload.length != HEADER_BYTES + count * RECORD_BYTES) {
+            throw new IllegalArgumentException(String.format(
+                "Reading frame declares %d records but has %d bytes", count, payload.length));
+        }
+
+        ZoneId zone = ZoneId.systemDefault();
+        List<Reading> readings = new ArrayList<>(count);
+        for (int offset = HEADER_BYTES; offset < payload.length; offset += RECORD_BYTES) {
+            short temperature = buffer.getShort(offset + 12);
+            int status = Byte.toUnsignedInt(buffer.get(offset + 14));
+            int flags = Byte.toUnsignedInt(buffer.get(offset + 15));
+
+            HeightDetectionMessage message = HeightDetectionMessage.builder()
+                .deviceId(deviceId)
+                .timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong(offset)), zone))
+                // Same 0.01 ft resolution as the JSON readings
+                .height(Math.round(buffer.getFloat(offset + 8) * 100.0) / 100.0)
+                .temperature(temperature == NO_TEMPERATURE ? null : temperature / 100.0)
+                .sensorStatus(status < SENSOR_STATUS.length ? SENSOR_STATUS[status] : "CODE_" + status)
+                .build();
+            readings.add(new Reading(message, (flags & FLAG_VIOLATION) != 0));
+        }
+        return readings;
+    }
+
+    public record Reading(HeightDetectionMessage message, boolean violation) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.model.ViolationSeverity;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Excess-height limits above which a violation is MEDIUM, HIGH or CRITICAL. Existing
+ * violations keep the severity they were stored with until a reclassification job runs.
+ */
+@Component
+@Getter
+public class SeverityBands {
+    
+    @Value("${app.violation.severity.medium:0.5}")
+    private double medium;
+    
+    @Value("${app.violation.severity.high:1.0}")
+    private double high;
+    
+    @Value("${app.violation.severity.critical:2.0}")
+    private double critical;
+    
+    @PostConstruct
+    void validate() {
+        if (!(medium >= 0 && medium < high && high < critical)) {
+            throw new IllegalStateException(String.format(
+                "app.violation.severity bands must be ascending: medium=%s high=%s critical=%s", medium, high, critical));
+        }
+    }
+    
+    public ViolationSeverity classify(double excessHeight) {
+        if (excessHeight > critical) {
+            return ViolationSeverity.CRITICAL;
+        } else if (excessHeight > high) {
+            return ViolationSeverity.HIGH;
+        } else if (excessHeight > medium) {
+            return ViolationSeverity.MEDIUM;
+        }
+        return ViolationSeverity.LOW;
+    }
+}
@@ -0,0 +1,61 @@
+package com.municipal.dashboard.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Startup milestones measured from JVM start: context ready, first MQTT message received and
+ * first MQTT message processed, i.e. committed to the database directly or by the spool drainer.
+ * The last one is what a restart actually costs in lost time.
+ */
+@Slf4j
+@Component
+public class StartupProbe {
+    
+    private final long jvmStartedAt = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private volatile long readyAt;
+    private volatile long firstReceivedAt;
+    private volatile long firstProcessedAt;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void applicationReady() {
+        readyAt = System.currentTimeMillis();
+        log.info("Application ready {} ms after JVM start", readyAt - jvmStartedAt);
+    }
+    
+    public void messageReceived() {
+        if (firstReceivedAt == 0) {
+            firstReceivedAt = System.currentTimeMillis();
+        }
+    }
+    
+    public void messageProcessed() {
+        if (firstProcessedAt == 0) {
+            synchronized (this) {
+                if (firstProcessedAt == 0) {
+                    firstProcessedAt = System.currentTimeMillis();
+                    log.info("First MQTT message processed {} ms after JVM start", firstProcessedAt - jvmStartedAt);
+                }
+            }
+        }
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("jvm_started_at", jvmStartedAt);
+        stats.put("ready_ms", sinceStart(readyAt));
+        stats.put("first_message_received_ms", sinceStart(firstReceivedAt));
+        stats.put("first_message_processed_ms", sinceStart(firstProcessedAt));
+        return stats;
+    }
+    
+    private Long sinceStart(long timestamp) {
+        return timestamp == 0 ? null : timestamp - jvmStartedAt;
+    }
+}
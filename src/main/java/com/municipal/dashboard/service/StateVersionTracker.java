@@ -0,0 +1,74 @@
+package com.municipal.dashboard.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters for detector and violation state, used to answer conditional GETs
+ * without touching the database. Counters move only after the mutating transaction
+ * commits, so a reader that captures a version before querying never under-reports.
+ */
+@Component
+public class StateVersionTracker {
+
+    // Seeded from the boot time so tags handed out before a restart never match afterwards
+    private final AtomicLong detectorVersion = new AtomicLong(System.currentTimeMillis());
+    private final AtomicLong violationVersion = new AtomicLong(System.currentTimeMillis());
+
+    private volatile long detectorsLastModified = System.currentTimeMillis();
+    private volatile long violationsLastModified = System.currentTimeMillis();
+
+    public long getDetectorVersion() {
+        return detectorVersion.get();
+    }
+
+    public long getViolationVersion() {
+        return violationVersion.get();
+    }
+
+    public long getDetectorsLastModified() {
+        return detectorsLastModified;
+    }
+
+    public long getViolationsLastModified() {
+        return violationsLastModified;
+    }
+
+    public void detectorsChanged() {
+        afterCommit(() -> {
+            detectorsLastModified = System.currentTimeMillis();
+            detectorVersion.incrementAndGet();
+        });
+    }
+
+    public void violationsChanged() {
+        afterCommit(() -> {
+            violationsLastModified = System.currentTimeMillis();
+            violationVersion.incrementAndGet();
+        });
+    }
+
+    public static String etag(String view, long... parts) {
+        StringBuilder tag = new StringBuilder("\"").append(view);
+        for (long part : parts) {
+            tag.append('-').append(Long.toHexString(part));
+        }
+        return tag.append('"').toString();
+    }
+
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.repository.ViolationRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-day violation counts keyed by event time, loaded once at startup and maintained
+ * incrementally afterwards. Late readings land in the bucket of the day they happened on
+ * instead of forcing a recount. Days older than the retained window are answered from the DB.
+ * <p>
+ * Updates share a read lock and only touch per-day atomics; moving the window to a new day
+ * takes the write lock, so no update can recreate a bucket that was just dropped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ViolationAggregates {
+    
+    private final ViolationRepository violationRepository;
+    
+    @Value("${app.event-time.retained-days:7}")
+    private int retainedDays;
+    
+    private final Map<LocalDate, AtomicLong> dailyCounts = new ConcurrentHashMap<>();
+    // Late violations folded into each retained day after it was first counted
+    private final Map<LocalDate, AtomicLong> dailyCorrections = new ConcurrentHashMap<>();
+    private final AtomicLong corrections = new AtomicLong();
+    private final ReadWriteLock windowLock = new ReentrantReadWriteLock();
+    private volatile LocalDate trackedSince;
+    
+    @PostConstruct
+    void initialize() {
+        LocalDate today = LocalDate.now();
+        trackedSince = today.minusDays(retainedDays - 1L);
+        for (LocalDate day = trackedSince; !day.isAfter(today); day = day.plusDays(1)) {
+            dailyCounts.put(day, new AtomicLong(countFromDatabase(day)));
+        }
+        log.info("Loaded daily violation aggregates since {}", trackedSince);
+    }
+    
+    public long violationsOn(LocalDate day) {
+        windowLock.readLock().lock();
+        try {
+            AtomicLong count = dailyCounts.get(day);
+            if (count != null) {
+                return count.get();
+            }
+            if (!day.isBefore(trackedSince)) {
+                // Everything on or after the tracked window went through this process
+                return 0;
+            }
+        } finally {
+            windowLock.readLock().unlock();
+        }
+        return countFromDatabase(day);
+    }
+    
+    public void recordViolations(Collection<LocalDateTime> detectedAt) {
+        if (detectedAt.isEmpty()) {
+            return;
+        }
+        Map<LocalDate, Long> perDay = perDay(detectedAt);
+        StateVersionTracker.afterCommit(() -> perDay.forEach(this::add));
+    }
+    
+    // Correction path for late data: each affected day is revised once per batch, and the
+    // revision is recorded against that day
+    public void applyCorrections(Collection<LocalDateTime> detectedAt) {
+        if (detectedAt.isEmpty()) {
+            return;
+        }
+        Map<LocalDate, Long> perDay = perDay(detectedAt);
+        StateVersionTracker.afterCommit(() -> {
+            long applied = 0;
+            for (Map.Entry<LocalDate, Long> day : perDay.entrySet()) {
+                if (add(day.getKey(), day.getValue())) {
+                    dailyCorrections.computeIfAbsent(day.getKey(), d -> new AtomicLong()).addAndGet(day.getValue());
+                    applied += day.getValue();
+                }
+            }
+            corrections.addAndGet(applied);
+            log.debug("Revised violation aggregates of {} days with {} late violations", perDay.size(), applied);
+        });
+    }
+    
+    public void removeViolations(Collection<LocalDateTime> detectedAt) {
+        Map<LocalDate, Long> perDay = perDay(detectedAt);
+        StateVersionTracker.afterCommit(() -> {
+            windowLock.readLock().lock();
+            try {
+                perDay.forEach((day, removed) -> {
+                    AtomicLong count = dailyCounts.get(day);
+                    if (count != null) {
+                        count.addAndGet(-removed);
+                    }
+                });
+            } finally {
+                windowLock.readLock().unlock();
+            }
+        });
+    }
+    
+    public long getCorrections() {
+        return corrections.get();
+    }
+    
+    public Map<String, Object> getStats() {
+        advanceWindow();
+        Map<String, Object> days = new TreeMap<>();
+        windowLock.readLock().lock();
+        try {
+            dailyCounts.forEach((day, count) -> {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("violations", count.get());
+                AtomicLong corrected = dailyCorrections.get(day);
+                entry.put("late_corrections", corrected != null ? corrected.get() : 0L);
+                days.put(day.toString(), entry);
+            });
+        } finally {
+            windowLock.readLock().unlock();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tracked_since", trackedSince.toString());
+        stats.put("late_corrections", corrections.get());
+        stats.put("days", days);
+        return stats;
+    }
+    
+    private boolean add(LocalDate day, long violations) {
+        advanceWindow();
+        windowLock.readLock().lock();
+        try {
+            if (day.isBefore(trackedSince)) {
+                return false;
+            }
+            dailyCounts.computeIfAbsent(day, d -> new AtomicLong()).addAndGet(violations);
+            return true;
+        } finally {
+            windowLock.readLock().unlock();
+        }
+    }
+    
+    private void advanceWindow() {
+        LocalDate oldest = LocalDate.now().minusDays(retainedDays - 1L);
+        if (!oldest.isAfter(trackedSince)) {
+            return;
+        }
+        windowLock.writeLock().lock();
+        try {
+            if (oldest.isAfter(trackedSince)) {
+                trackedSince = oldest;
+                dailyCounts.keySet().removeIf(day -> day.isBefore(oldest));
+                dailyCorrections.keySet().removeIf(day -> day.isBefore(oldest));
+            }
+        } finally {
+            windowLock.writeLock().unlock();
+        }
+    }
+    
+    private static Map<LocalDate, Long> perDay(Collection<LocalDateTime> detectedAt) {
+        return detectedAt.stream()
+            .map(LocalDateTime::toLocalDate)
+            .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    }
+    
+    private long countFromDatabase(LocalDate day) {
+        return violationRepository.countByDetectedAtBetween(day.atStartOfDay(), day.atTime(LocalTime.MAX));
+    }
+}
@@ -0,0 +1,215 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.ViolationResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzipped NDJSON files of archived violations, one file per retention chunk. File names carry
+ * the covered days and id range, so a query only opens files whose days overlap it. A chunk is
+ * staged under a .part name and published by renaming it once its rows are deleted.
+ */
+@Slf4j
+@Component
+public class ViolationArchive {
+    
+    private static final String STAGED_SUFFIX = ".part";
+    private static final Pattern FILE_NAME =
+        Pattern.compile("violations_(\\d{4}-\\d{2}-\\d{2})_(\\d{4}-\\d{2}-\\d{2})_(\\d+)-(\\d+)\\.ndjson\\.gz");
+    
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+    private final ForkJoinPool scanPool;
+    
+    @Value("${app.retention.directory:./data/archive}")
+    private String directory;
+    
+    public ViolationArchive(JsonMapper objectMapper,
+                            @Value("${app.retention.scan-parallelism:4}") int scanParallelism) {
+        this.writer = objectMapper.writerFor(ViolationResponse.class);
+        this.reader = objectMapper.readerFor(ViolationResponse.class);
+        this.scanPool = new ForkJoinPool(scanParallelism);
+    }
+    
+    @PreDestroy
+    void close() {
+        scanPool.shutdownNow();
+    }
+    
+    // Durable but invisible to queries until published; the caller publishes once the rows are deleted
+    public Path stage(List<ViolationResponse> violations) throws IOException {
+        LocalDate firstDay = violations.stream().map(v -> v.getDetectedAt().toLocalDate()).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDate lastDay = violations.stream().map(v -> v.getDetectedAt().toLocalDate()).max(Comparator.naturalOrder()).orElseThrow();
+        long firstId = violations.stream().mapToLong(ViolationResponse::getId).min().orElseThrow();
+        long lastId = violations.stream().mapToLong(ViolationResponse::getId).max().orElseThrow();
+        
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        Path target = dir.resolve(String.format("violations_%s_%s_%d-%d.ndjson.gz", firstDay, lastDay, firstId, lastId));
+        Path staged = dir.resolve(target.getFileName() + STAGED_SUFFIX);
+        
+        try (OutputStream out = Files.newOutputStream(staged);
+             BufferedWriter lines = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(out), StandardCharsets.UTF_8))) {
+            for (ViolationResponse violation : violations) {
+                lines.write(writer.writeValueAsString(violation));
+                lines.newLine();
+            }
+        }
+        try (FileChannel channel = FileChannel.open(staged, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        return staged;
+    }
+    
+    // Atomic rename, so queries never see a truncated archive
+    public Path publish(Path staged) throws IOException {
+        String name = staged.getFileName().toString();
+        Path target = staged.resolveSibling(name.substring(0, name.length() - STAGED_SUFFIX.length()));
+        Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return target;
+    }
+    
+    public void discard(Path staged) throws IOException {
+        Files.deleteIfExists(staged);
+    }
+    
+    // Left behind by a run that stopped between staging a chunk and publishing it
+    public List<Path> stagedFiles() {
+        Path dir = Paths.get(directory);
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> listing = Files.list(dir)) {
+            return listing.filter(p -> p.getFileName().toString().endsWith(STAGED_SUFFIX)).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list archive directory " + dir, e);
+        }
+    }
+    
+    // Ids dedupe a chunk that ended up in two files, e.g. restored from a backup next to its copy
+    public List<ViolationResponse> query(LocalDateTime start, LocalDateTime end, String deviceId, int limit) {
+        List<Path> files = filesOverlapping(start.toLocalDate(), end.toLocalDate());
+        List<List<ViolationResponse>> scanned;
+        try {
+            scanned = scanPool.submit(() -> files.parallelStream()
+                .map(file -> scan(file, start, end, deviceId))
+                .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Archive scan interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Archive scan failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        
+        Map<Long, ViolationResponse> byId = new LinkedHashMap<>();
+        scanned.forEach(list -> list.forEach(v -> byId.putIfAbsent(v.getId(), v)));
+        return byId.values().stream()
+            .sorted(Comparator.comparing(ViolationResponse::getDetectedAt).thenComparing(ViolationResponse::getId))
+            .limit(limit)
+            .toList();
+    }
+    
+    public Map<String, Object> getStats() {
+        long files = 0;
+        long bytes = 0;
+        for (Path file : listFiles()) {
+            files++;
+            try {
+                bytes += Files.size(file);
+            } catch (IOException e) {
+                log.debug("Cannot size archive file {}: {}", file.getFileName(), e.getMessage());
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("directory", Paths.get(directory).toAbsolutePath().toString());
+        stats.put("files", files);
+        stats.put("bytes", bytes);
+        return stats;
+    }
+    
+    private List<Path> filesOverlapping(LocalDate from, LocalDate to) {
+        List<Path> matching = new ArrayList<>();
+        for (Path file : listFiles()) {
+            Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+            if (matcher.matches()
+                    && !LocalDate.parse(matcher.group(1)).isAfter(to)
+                    && !LocalDate.parse(matcher.group(2)).isBefore(from)) {
+                matching.add(file);
+            }
+        }
+        return matching;
+    }
+    
+    private List<Path> listFiles() {
+        Path dir = Paths.get(directory);
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> listing = Files.list(dir)) {
+            return listing.filter(p -> FILE_NAME.matcher(p.getFileName().toString()).matches()).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list archive directory " + dir, e);
+        }
+    }
+    
+    private List<ViolationResponse> scan(Path file, LocalDateTime start, LocalDateTime end, String deviceId) {
+        List<ViolationResponse> matches = new ArrayList<>();
+        forEachLine(file, line -> {
+            ViolationResponse violation = reader.readValue(line);
+            if (!violation.getDetectedAt().isBefore(start) && !violation.getDetectedAt().isAfter(end)
+                    && (deviceId == null || deviceId.equals(violation.getDeviceId()))) {
+                matches.add(violation);
+            }
+        });
+        return matches;
+    }
+    
+    private static void forEachLine(Path file, Consumer<String> action) {
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (!line.isBlank()) {
+                    action.accept(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read archive file " + file.getFileName(), e);
+        }
+    }
+}
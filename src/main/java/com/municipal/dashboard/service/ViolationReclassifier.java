@@ -0,0 +1,316 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.ReclassificationProgress;
+import com.municipal.dashboard.model.Detector;
+import com.municipal.dashboard.repository.ViolationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recomputes clearance, excess height and severity of stored violations after a bridge is
+ * re-surveyed or the severity bands change. The id range is cut into chunks that worker
+ * threads claim in turn; a chunk is two set-based UPDATEs in its own transaction, and chunks
+ * never overlap, so workers do not contend for rows. Workers back off while the ingest
+ * pipeline is under pressure and pause between chunks to leave live ingest its share of
+ * connections. Detectors whose clearance changed are reclassified one device-scoped job at a
+ * time after the change commits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ViolationReclassifier {
+
+    private final ViolationRepository violationRepository;
+    private final ViolationService violationService;
+    private final DetectorService detectorService;
+    private final SeverityBands severityBands;
+    private final PendingViolationIndex pendingViolationIndex;
+    private final HistoricalQueryCache historicalQueryCache;
+    private final StateVersionTracker stateVersionTracker;
+    private final IngestAdmission ingestAdmission;
+    private final DashboardStatsService dashboardStatsService;
+    private final WebSocketMessagingService webSocketMessagingService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.reclassify.chunk-size:5000}")
+    private int chunkSize;
+
+    // 0 uses half the available cores
+    @Value("${app.reclassify.parallelism:0}")
+    private int parallelism;
+
+    @Value("${app.reclassify.chunk-pause-ms:20}")
+    private long chunkPauseMs;
+
+    // Admission queue plus journal backlog above which workers wait before their next chunk
+    @Value("${app.reclassify.max-ingest-pressure:5000}")
+    private long maxIngestPressure;
+    
+    // Queued devices beyond which a single job over all detectors replaces the device-scoped ones
+    @Value("${app.reclassify.max-queued-devices:50}")
+    private int maxQueuedDevices;
+
+    private final Map<Long, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong jobIds = new AtomicLong();
+    private ExecutorService executor;
+    private int workers;
+    private Job current;
+    // Devices whose clearance changed, waiting for the running job to finish; guarded by this
+    private final Set<String> queuedDevices = new LinkedHashSet<>();
+
+    @PostConstruct
+    void createExecutor() {
+        workers = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "violation-reclassify-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Reclassifies all violations, or one detector's when deviceId is given; a running job is returned as is
+    public synchronized ReclassificationProgress start(String deviceId) {
+        if (current != null && current.status == ReclassificationProgress.Status.RUNNING) {
+            return current.progress();
+        }
+        Long detectorId = null;
+        if (deviceId != null) {
+            detectorId = detectorService.findByDeviceId(deviceId)
+                .map(Detector::getId)
+                .orElseThrow(() -> new IllegalArgumentException("Detector not found: " + deviceId));
+        }
+
+        // Violations inserted after this point are classified with the current bands already
+        List<Object[]> range = violationRepository.findIdRange(detectorId);
+        Long minId = range.isEmpty() ? null : (Long) range.get(0)[0];
+        Long maxId = range.isEmpty() ? null : (Long) range.get(0)[1];
+        Job job = new Job(jobIds.incrementAndGet(), deviceId, detectorId,
+                          minId != null ? minId : 0, maxId != null ? maxId : -1, chunkSize,
+                          severityBands.getMedium(), severityBands.getHigh(), severityBands.getCritical());
+        jobs.put(job.id, job);
+        current = job;
+
+        List<CompletableFuture<Void>> running = new ArrayList<>(workers);
+        for (int i = 0; i < Math.min(workers, job.totalChunks); i++) {
+            running.add(CompletableFuture.runAsync(() -> work(job), executor));
+        }
+        CompletableFuture.allOf(running.toArray(CompletableFuture[]::new))
+            .whenComplete((ignored, error) -> finish(job, error));
+        log.info("Started reclassification job {} for {} ({} chunks, {} workers)",
+                 job.id, deviceId != null ? deviceId : "all detectors", job.totalChunks, running.size());
+        return job.progress();
+    }
+
+    // After commit, so the job reads the new clearance; runs without a transaction too (bulk writers)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onClearanceChanged(ClearanceChangedEvent event) {
+        queuedDevices.addAll(event.deviceIds());
+        startQueued();
+    }
+    
+    private synchronized void startQueued() {
+        if (queuedDevices.isEmpty() || (current != null && current.status == ReclassificationProgress.Status.RUNNING)) {
+            return;
+        }
+        if (queuedDevices.size() > maxQueuedDevices) {
+            log.info("Clearance changed on {} detectors, reclassifying all violations", queuedDevices.size());
+            queuedDevices.clear();
+            start(null);
+            return;
+        }
+        Iterator<String> devices = queuedDevices.iterator();
+        while (devices.hasNext()) {
+            String deviceId = devices.next();
+            devices.remove();
+            try {
+                start(deviceId);
+                return;
+            } catch (IllegalArgumentException e) {
+                // Retired since its clearance changed; nothing left to reclassify
+                log.debug("Skipping reclassification of {}: {}", deviceId, e.getMessage());
+            }
+        }
+    }
+    
+    public Optional<ReclassificationProgress> getJob(Long jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::progress);
+    }
+
+    private void work(Job job) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            long fromId;
+            while (job.error == null && (fromId = job.nextChunk()) <= job.maxId) {
+                throttle(job);
+                long from = fromId;
+                int[] changed = transaction.execute(status -> reclassifyChunk(job, from, from + job.chunkSize));
+                job.chunkDone(changed[0], changed[1]);
+                if (chunkPauseMs > 0) {
+                    Thread.sleep(chunkPauseMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.error = "Interrupted";
+            throw new CompletionException(e);
+        } catch (RuntimeException e) {
+            // Lets the other workers stop after their current chunk
+            job.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            throw e;
+        }
+    }
+
+    private void throttle(Job job) throws InterruptedException {
+        long started = System.currentTimeMillis();
+        while (ingestAdmission.pressure() > maxIngestPressure && job.error == null) {
+            Thread.sleep(Math.max(chunkPauseMs, 100));
+        }
+        job.throttledMs.addAndGet(System.currentTimeMillis() - started);
+    }
+
+    private int[] reclassifyChunk(Job job, long fromId, long toId) {
+        int clearance = violationRepository.updateClearanceInRange(fromId, toId, job.detectorId);
+        int severity = violationRepository.updateSeverityInRange(fromId, toId, job.detectorId,
+                                                                 job.medium, job.high, job.critical);
+        if (clearance > 0 || severity > 0) {
+            // Refresh the chunk's pending violations so the index order follows the new severities;
+            // only entries still indexed after commit are touched
+            pendingViolationIndex.replaceAll(violationRepository.findPendingInRange(fromId, toId, job.detectorId).stream()
+                .map(violationService::mapToResponse)
+                .toList());
+            stateVersionTracker.violationsChanged();
+        }
+        log.debug("Reclassification job {}: ids [{}, {}) clearance updated {}, severity changed {}",
+                  job.id, fromId, toId, clearance, severity);
+        return new int[]{clearance, severity};
+    }
+
+    // Runs whether or not the job failed: chunks that committed have changed stored violations
+    private void finish(Job job, Throwable error) {
+        if (job.deviceId != null) {
+            historicalQueryCache.invalidateDevice(job.deviceId);
+        } else {
+            historicalQueryCache.clear();
+        }
+        if (job.clearanceUpdated.get() > 0 || job.severityChanged.get() > 0) {
+            stateVersionTracker.violationsChanged();
+            webSocketMessagingService.broadcastStatsUpdate(dashboardStatsService.currentStats());
+        }
+
+        job.completedAt = LocalDateTime.now();
+        if (error != null) {
+            if (job.error == null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                job.error = cause.getMessage();
+            }
+            job.status = ReclassificationProgress.Status.FAILED;
+            log.error("Reclassification job {} failed after {}/{} chunks: {}",
+                      job.id, job.completedChunks.get(), job.totalChunks, job.error);
+        } else {
+            job.status = ReclassificationProgress.Status.COMPLETED;
+            log.info("Reclassification job {} completed: clearance updated on {}, severity changed on {} violations",
+                     job.id, job.clearanceUpdated.get(), job.severityChanged.get());
+        }
+        startQueued();
+    }
+
+    private static final class Job {
+
+        private final Long id;
+        private final String deviceId;
+        private final Long detectorId;
+        private final long maxId;
+        private final int chunkSize;
+        private final long totalChunks;
+        private final double medium;
+        private final double high;
+        private final double critical;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+
+        private final AtomicLong cursor;
+        private final AtomicLong completedChunks = new AtomicLong();
+        private final AtomicLong clearanceUpdated = new AtomicLong();
+        private final AtomicLong severityChanged = new AtomicLong();
+        private final AtomicLong throttledMs = new AtomicLong();
+        private volatile ReclassificationProgress.Status status = ReclassificationProgress.Status.RUNNING;
+        private volatile String error;
+        private volatile LocalDateTime completedAt;
+
+        Job(Long id, String deviceId, Long detectorId, long minId, long maxId, int chunkSize,
+            double medium, double high, double critical) {
+            this.id = id;
+            this.deviceId = deviceId;
+            this.detectorId = detectorId;
+            this.maxId = maxId;
+            this.chunkSize = chunkSize;
+            this.totalChunks = maxId >= minId ? (maxId - minId) / chunkSize + 1 : 0;
+            this.medium = medium;
+            this.high = high;
+            this.critical = critical;
+            this.cursor = new AtomicLong(minId);
+        }
+
+        long nextChunk() {
+            return cursor.getAndAdd(chunkSize);
+        }
+
+        void chunkDone(int clearance, int severity) {
+            clearanceUpdated.addAndGet(clearance);
+            severityChanged.addAndGet(severity);
+            completedChunks.incrementAndGet();
+        }
+
+        ReclassificationProgress progress() {
+            Map<String, Double> bands = new LinkedHashMap<>();
+            bands.put("medium", medium);
+            bands.put("high", high);
+            bands.put("critical", critical);
+            long completed = completedChunks.get();
+            return ReclassificationProgress.builder()
+                .jobId(id)
+                .deviceId(deviceId)
+                .status(status)
+                .severityBands(bands)
+                .totalChunks(totalChunks)
+                .completedChunks(completed)
+                .percentComplete(totalChunks > 0 ? Math.round(completed * 1000.0 / totalChunks) / 10.0 : 100.0)
+                .clearanceUpdated(clearanceUpdated.get())
+                .severityChanged(severityChanged.get())
+                .throttledMs(throttledMs.get())
+                .startedAt(startedAt)
+                .completedAt(completedAt)
+                .error(error)
+                .build();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.ViolationResponse;
+import com.municipal.dashboard.model.ArchiveManifest;
+import com.municipal.dashboard.model.ViolationStatus;
+import com.municipal.dashboard.repository.ArchiveManifestRepository;
+import com.municipal.dashboard.repository.ViolationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Moves violations older than the retention age out of the live table. Each chunk's rows are
+ * locked, staged as a durable archive file and deleted in one transaction that also records a
+ * manifest row for the file; only after that commits is the file published. A run that stopped
+ * in between is settled at the start of the next one: a staged file with a committed manifest is
+ * published, any other is discarded, so a violation ends up in exactly one place. Unacknowledged
+ * violations stay in the live table unless app.retention.include-pending is set.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Lazy(false)
+public class ViolationRetentionService {
+    
+    private final ViolationRepository violationRepository;
+    private final ArchiveManifestRepository archiveManifestRepository;
+    private final ViolationService violationService;
+    private final ViolationArchive violationArchive;
+    private final ViolationAggregates violationAggregates;
+    private final PendingViolationIndex pendingViolationIndex;
+    private final HistoricalQueryCache historicalQueryCache;
+    private final StateVersionTracker stateVersionTracker;
+    private final PlatformTransactionManager transactionManager;
+    
+    @Value("${app.retention.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.retention.max-age:365d}")
+    private Duration maxAge;
+    
+    @Value("${app.retention.chunk-size:5000}")
+    private int chunkSize;
+    
+    @Value("${app.retention.include-pending:false}")
+    private boolean includePending;
+    
+    // Violations an operator has already handled; DETECTED ones stay live unless include-pending is set
+    private static final Set<ViolationStatus> ARCHIVED_STATUSES =
+        EnumSet.of(ViolationStatus.ACKNOWLEDGED, ViolationStatus.RESOLVED, ViolationStatus.IGNORED);
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile LocalDateTime lastRunAt;
+    private volatile long lastRunArchived;
+    private volatile long totalArchived;
+    
+    @Scheduled(cron = "${app.retention.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            archiveExpired();
+        }
+    }
+    
+    public long archiveExpired() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Retention run already in progress");
+            return 0;
+        }
+        try {
+            recoverStaged();
+            LocalDateTime cutoff = getCutoff();
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            long archived = 0;
+            Chunk chunk;
+            while ((chunk = transaction.execute(status -> archiveChunk(cutoff))) != null) {
+                Path file = publish(chunk.staged());
+                archiveManifestRepository.deleteById(chunk.staged().getFileName().toString());
+                forgetArchived(chunk.violations());
+                archived += chunk.deleted();
+                log.debug("Archived {} violations to {}", chunk.deleted(), file.getFileName());
+            }
+            
+            lastRunAt = LocalDateTime.now();
+            lastRunArchived = archived;
+            totalArchived += archived;
+            log.info("Retention run archived {} violations detected before {}", archived, cutoff);
+            return archived;
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    public LocalDateTime getCutoff() {
+        return LocalDateTime.now().minus(maxAge);
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(violationArchive.getStats());
+        stats.put("enabled", enabled);
+        stats.put("include_pending", includePending);
+        stats.put("cutoff", getCutoff().toString());
+        stats.put("running", running.get());
+        stats.put("last_run_at", lastRunAt != null ? lastRunAt.toString() : null);
+        stats.put("last_run_archived", lastRunArchived);
+        stats.put("total_archived", totalArchived);
+        return stats;
+    }
+    
+    // Null once nothing is left before the cutoff. A rollback leaves the staged file without a
+    // manifest, so recoverStaged discards it
+    private Chunk archiveChunk(LocalDateTime cutoff) {
+        Set<ViolationStatus> statuses = includePending ? EnumSet.allOf(ViolationStatus.class) : ARCHIVED_STATUSES;
+        List<Long> ids = violationRepository.lockArchiveChunk(cutoff, statuses, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return null;
+        }
+        List<ViolationResponse> responses = violationRepository.findWithDetectorByIdIn(ids).stream()
+            .map(violationService::mapToResponse)
+            .toList();
+        
+        Path staged;
+        try {
+            staged = violationArchive.stage(responses);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write violation archive", e);
+        }
+        
+        // The rows are locked, so nothing else can have deleted them; a mismatch rolls the chunk back
+        int deleted = violationRepository.deleteByIdIn(ids);
+        if (deleted != ids.size() || responses.size() != ids.size()) {
+            throw new IllegalStateException("Archive chunk locked " + ids.size() + " violations but deleted " + deleted);
+        }
+        archiveManifestRepository.save(ArchiveManifest.builder()
+            .fileName(staged.getFileName().toString())
+            .violationCount(deleted)
+            .createdAt(LocalDateTime.now())
+            .build());
+        stateVersionTracker.violationsChanged();
+        return new Chunk(staged, responses, deleted);
+    }
+    
+    private void forgetArchived(List<ViolationResponse> violations) {
+        Set<Long> ids = violations.stream().map(ViolationResponse::getId).collect(Collectors.toSet());
+        violationAggregates.removeViolations(violations.stream().map(ViolationResponse::getDetectedAt).toList());
+        pendingViolationIndex.removeAll(ids);
+        historicalQueryCache.invalidateRange(null,
+            violations.stream().map(ViolationResponse::getDetectedAt).min(LocalDateTime::compareTo).orElseThrow(),
+            violations.stream().map(ViolationResponse::getDetectedAt).max(LocalDateTime::compareTo).orElseThrow());
+    }
+    
+    // The manifest commits with the delete, so it alone tells whether a staged file's rows are gone
+    private void recoverStaged() {
+        for (Path staged : violationArchive.stagedFiles()) {
+            String name = staged.getFileName().toString();
+            if (archiveManifestRepository.existsById(name)) {
+                publish(staged);
+                archiveManifestRepository.deleteById(name);
+                log.info("Published staged archive {} left by an interrupted retention run", name);
+            } else {
+                try {
+                    violationArchive.discard(staged);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot discard staged archive " + name, e);
+                }
+                log.info("Discarded staged archive {}; its violations were never deleted", name);
+            }
+        }
+    }
+    
+    private Path publish(Path staged) {
+        try {
+            return violationArchive.publish(staged);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot publish violation archive " + staged.getFileName(), e);
+        }
+    }
+    
+    private record Chunk(Path staged, List<ViolationResponse> violations, int deleted) {
+    }
+}
@@ -1,18 +1,33 @@
 package com.municipal.dashboard.service;
 
+import com.municipal.dashboard.dto.BulkViolationUpdateRequest;
+import com.municipal.dashboard.dto.BulkViolationUpdateResponse;
 import com.municipal.dashboard.dto.HeightDetectionMessage;
+import com.municipal.dashboard.dto.IngestRecordResult;
 import com.municipal.dashboard.dto.ViolationResponse;
 import com.municipal.dashboard.model.Detector;
 import com.municipal.dashboard.model.Violation;
+import com.municipal.dashboard.model.ViolationSeverity;
 import com.municipal.dashboard.model.ViolationStatus;
+import com.municipal.dashboard.repository.BulkWriteRepository;
 import com.municipal.dashboard.repository.ViolationRepository;
+import com.municipal.dashboard.tracing.DetectorLookupEvent;
+import com.municipal.dashboard.tracing.IngestTracing;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,19 +36,46 @@ import java.util.stream.Collectors;
 public class ViolationService {
     
     private final ViolationRepository violationRepository;
+    private final BulkWriteRepository bulkWriteRepository;
     private final DetectorService detectorService;
     private final WebSocketMessagingService webSocketMessagingService;
+    private final StateVersionTracker stateVersionTracker;
+    private final EventTimeTracker eventTimeTracker;
+    private final ViolationAggregates violationAggregates;
+    private final PendingViolationIndex pendingViolationIndex;
+    private final HistoricalQueryCache historicalQueryCache;
+    private final DetectorHitRates detectorHitRates;
+    private final SeverityBands severityBands;
+    
+    // Earliest detection time a filter-based bulk update considers when no lower bound is given
+    private static final LocalDateTime BULK_RANGE_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    // Ids locked and updated per statement by a filter-based bulk update
+    private static final int BULK_UPDATE_CHUNK_SIZE = 1000;
+    
+    @PostConstruct
+    void loadPendingIndex() {
+        List<ViolationResponse> pending = violationRepository.findPendingViolations().stream()
+            .map(this::mapToResponse)
+            .collect(Collectors.toList());
+        pendingViolationIndex.rebuild(pending);
+        log.info("Loaded {} pending violations into the in-memory index", pending.size());
+    }
     
     @Transactional
     public ViolationResponse processHeightDetection(HeightDetectionMessage message) {
         log.info("Processing height detection from device: {}, height: {}", 
                  message.getDeviceId(), message.getHeight());
         
+        DetectorLookupEvent lookup = new DetectorLookupEvent();
+        lookup.begin();
         Detector detector = detectorService.findByDeviceId(message.getDeviceId())
             .orElseThrow(() -> new RuntimeException("Detector not found: " + message.getDeviceId()));
+        traceLookup(lookup, message.getDeviceId());
         
-        if (message.getHeight() > detector.getClearanceHeight()) {
-            return recordViolation(detector, message);
+        EventTimeTracker.EventTime eventTime = eventTimeTracker.observe(detector.getDeviceId(), message.getTimestamp());
+        if (exceedsClearance(detector, message)) {
+            return recordViolation(detector, message, eventTime);
         }
         
         log.debug("No violation - height {} is within clearance {}", 
@@ -42,14 +84,14 @@ public class ViolationService {
     }
     
     @Transactional
-    protected ViolationResponse recordViolation(Detector detector, HeightDetectionMessage message) {
-        Violation violation = Violation.builder()
-            .detector(detector)
-            .detectedHeight(message.getHeight())
-            .clearanceHeight(detector.getClearanceHeight())
-            .build();
+    protected ViolationResponse recordViolation(Detector detector, HeightDetectionMessage message,
+                                                EventTimeTracker.EventTime eventTime) {
+        Violation violation = buildViolation(detector, message, eventTime);
         
         violation = violationRepository.save(violation);
+        updateAggregates(List.of(violation), List.of(eventTime));
+        historicalQueryCache.invalidate(detector.getDeviceId(), violation.getDetectedAt());
+        stateVersionTracker.violationsChanged();
         log.warn("VIOLATION DETECTED - Device: {}, Location: {}, Height: {}, Clearance: {}, Excess: {}, Severity: {}",
                  detector.getDeviceId(), 
                  detector.getLocation(),
@@ -59,16 +101,119 @@ public class ViolationService {
                  violation.getSeverity());
         
         ViolationResponse response = mapToResponse(violation);
+        pendingViolationIndex.add(response);
         
-        webSocketMessagingService.broadcastNewViolation(response);
+        // Clients re-read on the notification, so it must not arrive before the row is visible
+        StateVersionTracker.afterCommit(() -> webSocketMessagingService.broadcastNewViolation(response));
         
         return response;
     }
     
-    public List<ViolationResponse> getPendingViolations() {
-        return violationRepository.findPendingViolations().stream()
-            .map(this::mapToResponse)
-            .collect(Collectors.toList());
+    // Same rules as processHeightDetection, but one detector lookup, one insert batch,
+    // one heartbeat update and one WebSocket notification for the whole batch
+    @Transactional
+    public List<IngestRecordResult> processHeightDetections(List<HeightDetectionMessage> messages) {
+        Set<String> deviceIds = messages.stream()
+            .map(HeightDetectionMessage::getDeviceId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        DetectorLookupEvent lookup = new DetectorLookupEvent();
+        lookup.begin();
+        Map<String, Detector> detectors = detectorService.findByDeviceIds(deviceIds);
+        traceLookup(lookup, null);
+        
+        List<IngestRecordResult> results = new ArrayList<>(messages.size());
+        List<Violation> violations = new ArrayList<>();
+        List<IngestRecordResult> violationResults = new ArrayList<>();
+        List<EventTimeTracker.EventTime> eventTimes = new ArrayList<>();
+        Set<String> seenDevices = new HashSet<>();
+        
+        for (HeightDetectionMessage message : messages) {
+            IngestRecordResult result = IngestRecordResult.builder()
+                .deviceId(message.getDeviceId())
+                .build();
+            results.add(result);
+            
+            Detector detector = message.getDeviceId() != null ? detectors.get(message.getDeviceId()) : null;
+            if (detector == null) {
+                result.setOutcome(IngestRecordResult.Outcome.REJECTED);
+                result.setError("Detector not found: " + message.getDeviceId());
+                continue;
+            }
+            if (message.getHeight() == null) {
+                result.setOutcome(IngestRecordResult.Outcome.REJECTED);
+                result.setError("Missing height");
+                continue;
+            }
+            
+            seenDevices.add(detector.getDeviceId());
+            EventTimeTracker.EventTime eventTime = eventTimeTracker.observe(detector.getDeviceId(), message.getTimestamp());
+            if (exceedsClearance(detector, message)) {
+                result.setOutcome(IngestRecordResult.Outcome.VIOLATION);
+                violations.add(buildViolation(detector, message, eventTime));
+                eventTimes.add(eventTime);
+                violationResults.add(result);
+            } else {
+                result.setOutcome(IngestRecordResult.Outcome.ACCEPTED);
+            }
+        }
+        
+        List<ViolationResponse> responses = new ArrayList<>(violations.size());
+        if (!violations.isEmpty()) {
+            List<Violation> saved = bulkWriteRepository.insertViolations(violations);
+            updateAggregates(saved, eventTimes);
+            for (int i = 0; i < saved.size(); i++) {
+                violationResults.get(i).setViolationId(saved.get(i).getId());
+                historicalQueryCache.invalidate(saved.get(i).getDetector().getDeviceId(), saved.get(i).getDetectedAt());
+                responses.add(mapToResponse(saved.get(i)));
+            }
+            pendingViolationIndex.addAll(responses);
+            stateVersionTracker.violationsChanged();
+            log.warn("BATCH VIOLATIONS DETECTED - {} violations across {} detectors",
+                     violations.size(), violations.stream().map(v -> v.getDetector().getDeviceId()).distinct().count());
+        }
+        
+        detectorService.updateHeartbeats(seenDevices);
+        
+        if (responses.size() == 1) {
+            StateVersionTracker.afterCommit(() -> webSocketMessagingService.broadcastNewViolation(responses.get(0)));
+        } else if (!responses.isEmpty()) {
+            StateVersionTracker.afterCommit(() -> webSocketMessagingService.broadcastViolationBatch(responses));
+        }
+        return results;
+    }
+    
+    private boolean exceedsClearance(Detector detector, HeightDetectionMessage message) {
+        return message.getHeight() > detector.getClearanceHeight();
+    }
+    
+    private Violation buildViolation(Detector detector, HeightDetectionMessage message,
+                                     EventTimeTracker.EventTime eventTime) {
+        double excessHeight = message.getHeight() - detector.getClearanceHeight();
+        return Violation.builder()
+            .detector(detector)
+            .detectedHeight(message.getHeight())
+            .clearanceHeight(detector.getClearanceHeight())
+            .excessHeight(excessHeight)
+            .severity(severityBands.classify(excessHeight))
+            .detectedAt(eventTime.timestamp())
+            .build();
+    }
+    
+    private void updateAggregates(List<Violation> violations, List<EventTimeTracker.EventTime> eventTimes) {
+        List<LocalDateTime> onTime = new ArrayList<>(violations.size());
+        List<LocalDateTime> late = new ArrayList<>();
+        for (int i = 0; i < violations.size(); i++) {
+            Violation violation = violations.get(i);
+            (eventTimes.get(i).late() ? late : onTime).add(violation.getDetectedAt());
+            detectorHitRates.recordViolation(violation.getDetector().getDeviceId(), violation.getDetectedAt());
+        }
+        violationAggregates.recordViolations(onTime);
+        violationAggregates.applyCorrections(late);
+    }
+    
+    public List<ViolationResponse> getPendingViolations(int limit) {
+        return pendingViolationIndex.top(limit);
     }
     
     public List<ViolationResponse> getViolationsByDevice(String deviceId) {
@@ -78,9 +223,20 @@ public class ViolationService {
     }
     
     public List<ViolationResponse> getViolationsByDateRange(LocalDateTime start, LocalDateTime end) {
-        return violationRepository.findByDetectedAtBetween(start, end).stream()
+        return getViolationHistory(start, end, null, null, null);
+    }
+    
+    // Windows that ended before today are served from the cache until a mutation touches them
+    public List<ViolationResponse> getViolationHistory(LocalDateTime start, LocalDateTime end, String deviceId,
+                                                       ViolationStatus status, ViolationSeverity severity) {
+        HistoricalQueryCache.Key key = new HistoricalQueryCache.Key(deviceId, start, end, status, severity);
+        return historicalQueryCache.get(key, () -> violationRepository.findHistory(start, end, deviceId, status, severity).stream()
             .map(this::mapToResponse)
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()));
+    }
+    
+    public Map<String, Object> getHistoryCacheStats() {
+        return historicalQueryCache.getStats();
     }
     
     @Transactional
@@ -93,16 +249,94 @@ public class ViolationService {
         violation.setNotes(notes);
         
         violation = violationRepository.save(violation);
+        pendingViolationIndex.remove(violationId);
+        historicalQueryCache.invalidate(violation.getDetector().getDeviceId(), violation.getDetectedAt());
+        stateVersionTracker.violationsChanged();
         log.info("Violation {} acknowledged", violationId);
         
         ViolationResponse response = mapToResponse(violation);
         
-        webSocketMessagingService.broadcastViolationAcknowledged(response);
+        StateVersionTracker.afterCommit(() -> webSocketMessagingService.broadcastViolationAcknowledged(response));
         
         return response;
     }
     
-    private ViolationResponse mapToResponse(Violation violation) {
+    // Violations already past the target state are left alone
+    @Transactional
+    public BulkViolationUpdateResponse bulkUpdateStatus(ViolationStatus status, BulkViolationUpdateRequest request) {
+        long started = System.currentTimeMillis();
+        Set<ViolationStatus> fromStatuses = switch (status) {
+            case ACKNOWLEDGED -> EnumSet.of(ViolationStatus.DETECTED);
+            case RESOLVED, IGNORED -> EnumSet.of(ViolationStatus.DETECTED, ViolationStatus.ACKNOWLEDGED);
+            default -> throw new IllegalArgumentException("Unsupported bulk status: " + status);
+        };
+        LocalDateTime now = LocalDateTime.now();
+        // Only an acknowledgement stamps acknowledgedAt; resolving or ignoring never does
+        LocalDateTime acknowledgedAt = status == ViolationStatus.ACKNOWLEDGED ? now : null;
+        
+        int updated;
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            Set<Long> ids = new HashSet<>(request.getIds());
+            List<Object[]> range = violationRepository.findDetectedAtRange(ids);
+            updated = violationRepository.updateStatusByIds(ids, fromStatuses, status, acknowledgedAt, request.getNotes());
+            pendingViolationIndex.removeAll(ids);
+            if (!range.isEmpty() && range.get(0)[0] != null) {
+                historicalQueryCache.invalidateRange(null, (LocalDateTime) range.get(0)[0], (LocalDateTime) range.get(0)[1]);
+            }
+        } else {
+            if (request.getDeviceId() == null && request.getSeverity() == null
+                    && request.getFrom() == null && request.getTo() == null) {
+                throw new IllegalArgumentException("Bulk update needs ids or at least one of device_id, severity, from, to");
+            }
+            // Without an upper bound the selection stops at the time of the request
+            LocalDateTime from = request.getFrom() != null ? request.getFrom() : BULK_RANGE_START;
+            LocalDateTime to = request.getTo() != null && request.getTo().isBefore(now) ? request.getTo() : now;
+            // The matching rows are locked and updated by id one chunk at a time, and exactly those ids
+            // leave the pending index; a violation committed meanwhile is neither changed nor evicted
+            updated = 0;
+            Long afterId = Long.MIN_VALUE;
+            List<Long> chunk;
+            do {
+                chunk = violationRepository.lockIdsForStatusUpdate(request.getDeviceId(), request.getSeverity(),
+                    from, to, fromStatuses, afterId, PageRequest.of(0, BULK_UPDATE_CHUNK_SIZE));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                updated += violationRepository.updateStatusByIds(chunk, fromStatuses, status, acknowledgedAt, request.getNotes());
+                pendingViolationIndex.removeAll(chunk);
+                afterId = chunk.get(chunk.size() - 1);
+            } while (chunk.size() == BULK_UPDATE_CHUNK_SIZE);
+            historicalQueryCache.invalidateRange(request.getDeviceId(), from, to);
+        }
+        
+        stateVersionTracker.violationsChanged();
+        log.info("Bulk update set {} violations to {}", updated, status);
+        
+        BulkViolationUpdateResponse response = BulkViolationUpdateResponse.builder()
+            .status(status)
+            .updated(updated)
+            .updatedAt(now)
+            .elapsedMs(System.currentTimeMillis() - started)
+            .build();
+        if (updated > 0) {
+            StateVersionTracker.afterCommit(() -> webSocketMessagingService.broadcastViolationBulkUpdate(response));
+        }
+        return response;
+    }
+    
+    private static void traceLookup(DetectorLookupEvent event, String deviceId) {
+        if (event.shouldCommit()) {
+            IngestTracing.Context context = IngestTracing.current();
+            if (context != null) {
+                event.set(deviceId != null ? deviceId : context.deviceId(), context.messageType(), context.correlationId());
+            } else {
+                event.set(deviceId, null, 0);
+            }
+            event.commit();
+        }
+    }
+    
+    ViolationResponse mapToResponse(Violation violation) {
         return ViolationResponse.builder()
             .id(violation.getId())
             .deviceId(violation.getDetector().getDeviceId())
@@ -1,19 +1,51 @@
 package com.municipal.dashboard.service;
 
+import com.municipal.dashboard.dto.BulkViolationUpdateResponse;
 import com.municipal.dashboard.dto.DashboardStats;
+import com.municipal.dashboard.dto.HotDetector;
+import com.municipal.dashboard.dto.ViolationBatchSummary;
 import com.municipal.dashboard.dto.ViolationResponse;
 import com.municipal.dashboard.dto.WebSocketNotification;
+import com.municipal.dashboard.model.ViolationSeverity;
+import com.municipal.dashboard.tracing.IngestTracing;
+import com.municipal.dashboard.tracing.WebSocketSendEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class WebSocketMessagingService {
     
+    // Carries the sequenced notification next to its JSON body, so binary-encoding sessions
+    // are encoded from the object instead of from the JSON text
+    public static final String NOTIFICATION_HEADER = "dashboardNotification";
+    
     private final SimpMessagingTemplate messagingTemplate;
+    private final NotificationReplayBuffer replayBuffer;
+    private final JsonMapper objectMapper;
+    
+    private static final Comparator<ViolationResponse> MOST_SEVERE_FIRST = Comparator
+        .comparing(ViolationResponse::getSeverity, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(ViolationResponse::getExcessHeight, Comparator.nullsLast(Comparator.reverseOrder()));
+    
+    // Violations listed in full in a batch notification
+    @Value("${app.websocket.batch-summary-top:20}")
+    private int batchSummaryTop;
     
     public void broadcastNewViolation(ViolationResponse violation) {
         WebSocketNotification notification = WebSocketNotification.builder()
@@ -27,10 +59,43 @@ public class WebSocketMessagingService {
             .data(violation)
             .build();
         
-        messagingTemplate.convertAndSend("/topic/violations", notification);
+        send("/topic/violations", notification);
         log.info("Broadcasted new violation: {}", violation.getId());
     }
     
+    // A batch can hold tens of thousands of violations; one frame carries counts and the most severe few
+    public void broadcastViolationBatch(List<ViolationResponse> violations) {
+        Map<ViolationSeverity, Long> bySeverity = new EnumMap<>(ViolationSeverity.class);
+        long firstId = Long.MAX_VALUE;
+        long lastId = Long.MIN_VALUE;
+        for (ViolationResponse violation : violations) {
+            bySeverity.merge(violation.getSeverity(), 1L, Long::sum);
+            firstId = Math.min(firstId, violation.getId());
+            lastId = Math.max(lastId, violation.getId());
+        }
+        long detectors = violations.stream().map(ViolationResponse::getDeviceId).distinct().count();
+        List<ViolationResponse> top = violations.stream()
+            .sorted(MOST_SEVERE_FIRST)
+            .limit(batchSummaryTop)
+            .toList();
+        ViolationBatchSummary summary = ViolationBatchSummary.builder()
+            .count(violations.size())
+            .detectorCount(detectors)
+            .bySeverity(bySeverity)
+            .firstId(violations.isEmpty() ? null : firstId)
+            .lastId(violations.isEmpty() ? null : lastId)
+            .top(top)
+            .build();
+        WebSocketNotification notification = WebSocketNotification.builder()
+            .notificationType(WebSocketNotification.NotificationType.VIOLATION_BATCH)
+            .message(String.format("%d new violations detected across %d detectors", violations.size(), detectors))
+            .data(summary)
+            .build();
+        
+        send("/topic/violations", notification);
+        log.info("Broadcasted batch of {} violations", violations.size());
+    }
+    
     public void broadcastViolationAcknowledged(ViolationResponse violation) {
         WebSocketNotification notification = WebSocketNotification.builder()
             .notificationType(WebSocketNotification.NotificationType.VIOLATION_ACK)
@@ -40,10 +105,21 @@ public class WebSocketMessagingService {
             .data(violation)
             .build();
         
-        messagingTemplate.convertAndSend("/topic/violations", notification);
+        send("/topic/violations", notification);
         log.info("Broadcasted violation acknowledgement: {}", violation.getId());
     }
     
+    public void broadcastViolationBulkUpdate(BulkViolationUpdateResponse update) {
+        WebSocketNotification notification = WebSocketNotification.builder()
+            .notificationType(WebSocketNotification.NotificationType.VIOLATION_BULK_UPDATE)
+            .message(String.format("%d violations marked %s", update.getUpdated(), update.getStatus()))
+            .data(update)
+            .build();
+        
+        send("/topic/violations", notification);
+        log.info("Broadcasted bulk update of {} violations to {}", update.getUpdated(), update.getStatus());
+    }
+    
     public void broadcastDetectorStatusChange(String deviceId, String location, boolean online) {
         WebSocketNotification notification = WebSocketNotification.builder()
             .notificationType(online ? 
@@ -56,7 +132,7 @@ public class WebSocketMessagingService {
             .location(location)
             .build();
         
-        messagingTemplate.convertAndSend("/topic/detectors", notification);
+        send("/topic/detectors", notification);
         log.info("Broadcasted detector status change: {} - {}", deviceId, online ? "ONLINE" : "OFFLINE");
     }
     
@@ -67,17 +143,81 @@ public class WebSocketMessagingService {
             .data(stats)
             .build();
         
-        messagingTemplate.convertAndSend("/topic/stats", notification);
+        send("/topic/stats", notification);
         log.debug("Broadcasted stats update");
     }
     
+    public void broadcastHotDetectors(Map<String, List<HotDetector>> hottest) {
+        WebSocketNotification notification = WebSocketNotification.builder()
+            .notificationType(WebSocketNotification.NotificationType.HOT_DETECTORS)
+            .message("Most violated detectors updated")
+            .data(hottest)
+            .build();
+        
+        send("/topic/stats", notification);
+        log.debug("Broadcasted hot detectors");
+    }
+    
     public void broadcastSystemAlert(String message) {
         WebSocketNotification notification = WebSocketNotification.builder()
             .notificationType(WebSocketNotification.NotificationType.SYSTEM_ALERT)
             .message(message)
             .build();
         
-        messagingTemplate.convertAndSend("/topic/alerts", notification);
+        send("/topic/alerts", notification);
         log.warn("Broadcasted system alert: {}", message);
     }
-}
\ No newline at end of file
+    
+    public void broadcastPong() {
+        WebSocketNotification notification = WebSocketNotification.builder()
+            .notificationType(WebSocketNotification.NotificationType.PONG)
+            .message("pong")
+            .build();
+        
+        send("/topic/pong", notification);
+    }
+    
+    private void send(String destination, WebSocketNotification notification) {
+        WebSocketSendEvent event = new WebSocketSendEvent();
+        event.begin();
+        // Serialized outside the lock, so concurrent senders only queue for the sequence and the hand-off
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(notification);
+        } catch (JacksonException e) {
+            log.error("Could not serialize {} notification for {}: {}",
+                      notification.getNotificationType(), destination, e.getMessage());
+            return;
+        }
+        // Sequence and send under one lock so the wire order matches the sequence order
+        synchronized (replayBuffer) {
+            long sequence = replayBuffer.append(destination, notification, body.length);
+            messagingTemplate.send(destination, MessageBuilder.withPayload(withSequence(body, sequence, destination))
+                .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+                .setHeader(NOTIFICATION_HEADER, notification)
+                .build());
+        }
+        if (event.shouldCommit()) {
+            // Sends for ingested data run after commit on the ingest thread, which still holds its context
+            IngestTracing.Context context = IngestTracing.current();
+            if (context != null) {
+                event.set(context.deviceId(), context.messageType(), context.correlationId());
+                event.setSequences(context.firstSequence(), context.lastSequence());
+            } else {
+                event.set(notification.getDeviceId(), notification.getNotificationType().name(), 0);
+            }
+            event.setDestination(destination);
+            event.commit();
+        }
+    }
+    
+    // The body was written without sequence and destination; both go in front of its first field
+    private static byte[] withSequence(byte[] body, long sequence, String destination) {
+        byte[] head = ("{\"sequence\":" + sequence + ",\"destination\":\"" + destination + "\"" + (body.length > 2 ? "," : ""))
+            .getBytes(StandardCharsets.UTF_8);
+        byte[] framed = new byte[head.length + body.length - 1];
+        System.arraycopy(head, 0, framed, 0, head.length);
+        System.arraycopy(body, 1, framed, head.length, body.length - 1);
+        return framed;
+    }
+}
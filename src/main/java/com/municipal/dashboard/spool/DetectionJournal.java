@@ -0,0 +1,381 @@
+package com.municipal.dashboard.spool;
+
+import com.municipal.dashboard.dto.HeightDetectionMessage;
+import com.municipal.dashboard.model.SpoolCheckpoint;
+import com.municipal.dashboard.repository.SpoolCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped journal of decoded detections. Appends only touch the mapping,
+ * so ingest runs at memory speed regardless of the database; {@link SpoolDrainer} replays
+ * the journal into the DB and commits a checkpoint in the same transaction as the data.
+ *
+ * A written mapping survives a process crash but not an OS crash or power loss, so
+ * {@link #append} forces the journal before it returns and the MQTT message is acknowledged.
+ * Concurrent appends share one force (group commit). {@code app.spool.force-interval-ms}
+ * trades that for throughput: a positive value forces at most once per interval, so an OS
+ * crash can lose up to that much acknowledged input; a negative value leaves forcing to the
+ * drainer's idle pass, a segment roll and shutdown.
+ *
+ * Record layout: int bodyLength | int crc32(body) | long sequence | byte type
+ * | long epochSecond | int nano | double height | double temperature
+ * | short idLength | id | short statusLength | status. A zero length ends a segment.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.spool.enabled", havingValue = "true", matchIfMissing = true)
+public class DetectionJournal {
+
+    public static final String CHECKPOINT_NAME = "detections";
+
+    private static final String SEGMENT_PREFIX = "spool-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    private static final int FIXED_BODY_BYTES = 8 + 1 + 8 + 4 + 8 + 8 + 2 + 2;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final SpoolCheckpointRepository checkpointRepository;
+
+    @Value("${app.spool.directory:./data/spool}")
+    private String directory;
+
+    @Value("${app.spool.segment-size:16777216}")
+    private int segmentSize;
+
+    @Value("${app.spool.force-interval-ms:0}")
+    private long forceIntervalMs;
+
+    // Guarded by this
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+    private long lastSequence;
+
+    // Taken without holding this, so appends continue while a force is in progress
+    private final Object forceLock = new Object();
+    private volatile long durableSequence;
+    private volatile long lastForceNanos;
+
+    // Only the drainer moves the read cursor
+    private volatile long acknowledgedSequence;
+    private int readSegment;
+    private int readOffset;
+
+    @PostConstruct
+    synchronized void open() throws IOException {
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+
+        acknowledgedSequence = checkpointRepository.findById(CHECKPOINT_NAME)
+            .map(SpoolCheckpoint::getLastSequence)
+            .orElse(0L);
+        lastSequence = acknowledgedSequence;
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = listing
+                .filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                .filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted()
+                .toList();
+        }
+        for (Path file : files) {
+            Segment segment = Segment.open(file, segmentSize);
+            segment.recover();
+            segments.add(segment);
+            lastSequence = Math.max(lastSequence, segment.lastSequence);
+        }
+        // Whatever recovery found is on disk already
+        durableSequence = lastSequence;
+        lastForceNanos = System.nanoTime();
+
+        if (segments.isEmpty()) {
+            roll();
+        } else {
+            active = segments.get(segments.size() - 1);
+        }
+        log.info("Opened detection journal in {}: {} segments, sequence {}, checkpoint {}",
+                 dir.toAbsolutePath(), segments.size(), lastSequence, acknowledgedSequence);
+    }
+
+    public long append(SpoolRecord.Type type, HeightDetectionMessage message) {
+        long sequence = write(type, message);
+        if (forceIntervalMs == 0
+                || forceIntervalMs > 0 && System.nanoTime() - lastForceNanos >= forceIntervalMs * 1_000_000) {
+            forceThrough(sequence);
+        }
+        return sequence;
+    }
+
+    private synchronized long write(SpoolRecord.Type type, HeightDetectionMessage message) {
+        byte[] deviceId = message.getDeviceId().getBytes(StandardCharsets.UTF_8);
+        byte[] status = message.getSensorStatus() != null
+            ? message.getSensorStatus().getBytes(StandardCharsets.UTF_8)
+            : null;
+        int bodyLength = FIXED_BODY_BYTES + deviceId.length + (status != null ? status.length : 0);
+        int recordLength = HEADER_BYTES + bodyLength;
+        if (recordLength > segmentSize) {
+            throw new IllegalArgumentException("Record does not fit in a journal segment");
+        }
+        if (active.limit + recordLength > segmentSize) {
+            roll();
+        }
+
+        long sequence = lastSequence + 1;
+        MappedByteBuffer buffer = active.buffer;
+        int offset = active.limit;
+        int pos = offset + HEADER_BYTES;
+
+        buffer.putLong(pos, sequence);
+        buffer.put(pos + 8, (byte) type.ordinal());
+        LocalDateTime timestamp = message.getTimestamp();
+        buffer.putLong(pos + 9, timestamp != null ? timestamp.toEpochSecond(ZoneOffset.UTC) : NO_TIMESTAMP);
+        buffer.putInt(pos + 17, timestamp != null ? timestamp.getNano() : 0);
+        buffer.putDouble(pos + 21, message.getHeight() != null ? message.getHeight() : Double.NaN);
+        buffer.putDouble(pos + 29, message.getTemperature() != null ? message.getTemperature() : Double.NaN);
+        buffer.putShort(pos + 37, (short) deviceId.length);
+        buffer.put(pos + 39, deviceId);
+        int statusPos = pos + 39 + deviceId.length;
+        buffer.putShort(statusPos, (short) (status != null ? status.length : -1));
+        if (status != null) {
+            buffer.put(statusPos + 2, status);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(pos, bodyLength));
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        // Length goes last: a reader never sees a record before its body is complete
+        buffer.putInt(offset, bodyLength);
+
+        active.limit = offset + recordLength;
+        active.lastSequence = sequence;
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    public synchronized Batch read(int maxRecords) {
+        List<SpoolRecord> records = new ArrayList<>(Math.min(maxRecords, 1024));
+        int segmentIndex = readSegment;
+        int offset = readOffset;
+
+        while (records.size() < maxRecords && segmentIndex < segments.size()) {
+            Segment segment = segments.get(segmentIndex);
+            if (offset >= segment.limit) {
+                if (segment == active) {
+                    break;
+                }
+                segmentIndex++;
+                offset = 0;
+                continue;
+            }
+            int bodyLength = segment.buffer.getInt(offset);
+            SpoolRecord record = decode(segment.buffer, offset + HEADER_BYTES, bodyLength);
+            offset += HEADER_BYTES + bodyLength;
+            if (record.sequence() > acknowledgedSequence) {
+                records.add(record);
+            }
+        }
+        return new Batch(records, segmentIndex, offset);
+    }
+
+    public synchronized void acknowledge(Batch batch) {
+        if (!batch.records().isEmpty()) {
+            acknowledgedSequence = batch.records().get(batch.records().size() - 1).sequence();
+        }
+        readSegment = batch.segmentIndex();
+        readOffset = batch.offset();
+
+        // Drop sealed segments the cursor has moved past
+        while (readSegment > 0 && segments.get(0) != active) {
+            Segment consumed = segments.remove(0);
+            readSegment--;
+            consumed.delete();
+        }
+    }
+
+    public void force() {
+        forceThrough(getLastSequence());
+    }
+
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    public long getLastSequence() {
+        synchronized (this) {
+            return lastSequence;
+        }
+    }
+
+    public long getBacklog() {
+        return getLastSequence() - acknowledgedSequence;
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+            segment.close();
+        }
+    }
+
+    // Callers queued behind a force find their record already covered by it and return at once
+    private void forceThrough(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (durableSequence >= sequence) {
+                return;
+            }
+            Segment segment;
+            long target;
+            synchronized (this) {
+                // Earlier segments were forced when they were rolled
+                segment = active;
+                target = lastSequence;
+            }
+            segment.buffer.force();
+            durableSequence = target;
+            lastForceNanos = System.nanoTime();
+        }
+    }
+
+    private void roll() {
+        if (active != null) {
+            active.buffer.force();
+        }
+        Path file = Paths.get(directory, String.format("%s%020d%s", SEGMENT_PREFIX, lastSequence + 1, SEGMENT_SUFFIX));
+        try {
+            active = Segment.open(file, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal segment " + file, e);
+        }
+        segments.add(active);
+        log.debug("Rolled detection journal to {}", file.getFileName());
+    }
+
+    private static SpoolRecord decode(MappedByteBuffer buffer, int pos, int bodyLength) {
+        long sequence = buffer.getLong(pos);
+        SpoolRecord.Type type = SpoolRecord.Type.values()[buffer.get(pos + 8)];
+        long epochSecond = buffer.getLong(pos + 9);
+        int nano = buffer.getInt(pos + 17);
+        double height = buffer.getDouble(pos + 21);
+        double temperature = buffer.getDouble(pos + 29);
+        byte[] deviceId = new byte[buffer.getShort(pos + 37)];
+        buffer.get(pos + 39, deviceId);
+        int statusPos = pos + 39 + deviceId.length;
+        short statusLength = buffer.getShort(statusPos);
+        String status = null;
+        if (statusLength >= 0) {
+            byte[] statusBytes = new byte[statusLength];
+            buffer.get(statusPos + 2, statusBytes);
+            status = new String(statusBytes, StandardCharsets.UTF_8);
+        }
+
+        HeightDetectionMessage message = HeightDetectionMessage.builder()
+            .deviceId(new String(deviceId, StandardCharsets.UTF_8))
+            .timestamp(epochSecond == NO_TIMESTAMP ? null : LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC))
+            .height(Double.isNaN(height) ? null : height)
+            .temperature(Double.isNaN(temperature) ? null : temperature)
+            .sensorStatus(status)
+            .build();
+        return new SpoolRecord(sequence, type, message);
+    }
+
+    public record Batch(List<SpoolRecord> records, int segmentIndex, int offset) {
+
+        public boolean isEmpty() {
+            return records.isEmpty();
+        }
+
+        public long lastSequence() {
+            return records.get(records.size() - 1).sequence();
+        }
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private volatile int limit;
+        private long lastSequence;
+
+        private Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path path, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        // Finds the end of valid data; a torn or corrupt tail from a crash is zeroed
+        void recover() {
+            int offset = 0;
+            int capacity = buffer.capacity();
+            while (offset + HEADER_BYTES <= capacity) {
+                int bodyLength = buffer.getInt(offset);
+                if (bodyLength < FIXED_BODY_BYTES || offset + HEADER_BYTES + bodyLength > capacity) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(buffer.slice(offset + HEADER_BYTES, bodyLength));
+                if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                    log.warn("Discarding torn journal record at {}:{}", path.getFileName(), offset);
+                    break;
+                }
+                lastSequence = buffer.getLong(offset + HEADER_BYTES);
+                offset += HEADER_BYTES + bodyLength;
+            }
+            for (int i = offset; i < Math.min(capacity, offset + 65536); i++) {
+                buffer.put(i, (byte) 0);
+            }
+            limit = offset;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Error closing journal segment {}: {}", path.getFileName(), e.getMessage());
+            }
+        }
+
+        void delete() {
+            close();
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                // Still mapped on some platforms; it is ignored on the next start once drained
+                log.warn("Could not delete drained journal segment {}: {}", path.getFileName(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.municipal.dashboard.spool;
+
+import com.municipal.dashboard.dto.HeightDetectionMessage;
+import com.municipal.dashboard.dto.IngestRecordResult;
+import com.municipal.dashboard.model.SpoolCheckpoint;
+import com.municipal.dashboard.repository.SpoolCheckpointRepository;
+import com.municipal.dashboard.service.DetectorService;
+import com.municipal.dashboard.service.IngestAdmission;
+import com.municipal.dashboard.service.StartupProbe;
+import com.municipal.dashboard.service.ViolationService;
+import com.municipal.dashboard.tracing.IngestTracing;
+import com.municipal.dashboard.tracing.SpoolDrainEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replays the detection journal into the database in batches. Each batch and its checkpoint
+ * commit in one transaction, so a crash at any point replays from the last committed
+ * checkpoint and never applies a record twice.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.spool.enabled", havingValue = "true", matchIfMissing = true)
+public class SpoolDrainer implements SmartLifecycle {
+
+    private final DetectionJournal journal;
+    private final ViolationService violationService;
+    private final DetectorService detectorService;
+    private final IngestAdmission ingestAdmission;
+    private final SpoolCheckpointRepository checkpointRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final StartupProbe startupProbe;
+
+    @Value("${app.spool.drain-batch-size:5000}")
+    private int maxBatchSize;
+
+    @Value("${app.spool.idle-interval-ms:200}")
+    private long idleIntervalMs;
+
+    @Value("${app.spool.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    // Written by the worker only
+    private volatile int batchSize;
+    private volatile long lastIterationAt;
+    private volatile long consecutiveFailures;
+    private volatile String lastError;
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::drainLoop, "spool-drainer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running);
+        stats.put("alive", worker != null && worker.isAlive());
+        stats.put("last_iteration_at", lastIterationAt);
+        stats.put("ms_since_last_iteration", lastIterationAt > 0 ? System.currentTimeMillis() - lastIterationAt : null);
+        stats.put("consecutive_failures", consecutiveFailures);
+        stats.put("last_error", lastError);
+        stats.put("batch_size", batchSize);
+        stats.put("backlog", journal.getBacklog());
+        stats.put("last_sequence", journal.getLastSequence());
+        stats.put("durable_sequence", journal.getDurableSequence());
+        return stats;
+    }
+
+    // Every step of an iteration can fail on the DB or the journal; all of them retry with backoff
+    // instead of ending the thread while appends keep coming in
+    private void drainLoop() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        batchSize = maxBatchSize;
+        long backoff = idleIntervalMs;
+
+        while (running) {
+            lastIterationAt = System.currentTimeMillis();
+            try {
+                drainOnce(transaction);
+                backoff = idleIntervalMs;
+                consecutiveFailures = 0;
+                lastError = null;
+            } catch (Exception e) {
+                consecutiveFailures++;
+                lastError = e.getMessage();
+                log.warn("Spool drain failed (backlog {}, batch size {}), retrying in {} ms: {}",
+                         journal.getBacklog(), batchSize, backoff, e.getMessage());
+                sleep(backoff);
+                backoff = Math.min(backoff * 2, maxBackoffMs);
+            }
+        }
+    }
+
+    private void drainOnce(TransactionTemplate transaction) {
+        DetectionJournal.Batch batch = journal.read(batchSize);
+        if (batch.isEmpty()) {
+            // Still moves the cursor past records an earlier run already committed
+            journal.acknowledge(batch);
+            journal.force();
+            sleep(idleIntervalMs);
+            return;
+        }
+
+        SpoolDrainEvent event = new SpoolDrainEvent();
+        event.begin();
+        try (IngestTracing.Scope scope = IngestTracing.open(
+                IngestTracing.Context.batch(batch.records().get(0).sequence(), batch.lastSequence()))) {
+            transaction.executeWithoutResult(status -> apply(batch));
+            // Journaled messages count as processed once their batch is durable in the database
+            startupProbe.messageProcessed();
+            journal.acknowledge(batch);
+            commit(event, batch, true);
+            batchSize = maxBatchSize;
+        } catch (RuntimeException e) {
+            commit(event, batch, false);
+            if (batch.records().size() == 1 && isPoison(e)) {
+                log.error("Skipping journal record {} that the database rejects: {}",
+                          batch.lastSequence(), e.getMessage());
+                transaction.executeWithoutResult(status -> saveCheckpoint(batch.lastSequence()));
+                journal.acknowledge(batch);
+                return;
+            }
+            // Shrink the batch so a single bad record can be isolated
+            batchSize = Math.max(1, batch.records().size() / 2);
+            throw e;
+        }
+    }
+
+    private void apply(DetectionJournal.Batch batch) {
+        List<HeightDetectionMessage> readings = new ArrayList<>(batch.records().size());
+        Set<String> heartbeats = new HashSet<>();
+        for (SpoolRecord record : ingestAdmission.select(batch.records(), journal.getBacklog())) {
+            if (record.type() == SpoolRecord.Type.HEARTBEAT) {
+                heartbeats.add(record.message().getDeviceId());
+            } else {
+                readings.add(record.message());
+            }
+        }
+
+        if (!readings.isEmpty()) {
+            long rejected = violationService.processHeightDetections(readings).stream()
+                .filter(result -> result.getOutcome() == IngestRecordResult.Outcome.REJECTED)
+                .count();
+            if (rejected > 0) {
+                log.warn("Dropped {} spooled readings from unknown detectors or without height", rejected);
+            }
+        }
+        detectorService.updateHeartbeats(heartbeats);
+        saveCheckpoint(batch.lastSequence());
+    }
+
+    private static void commit(SpoolDrainEvent event, DetectionJournal.Batch batch, boolean succeeded) {
+        if (event.shouldCommit()) {
+            event.set(batch.records().get(0).sequence(), batch.lastSequence(), batch.records().size());
+            event.setSucceeded(succeeded);
+            event.commit();
+        }
+    }
+
+    private void saveCheckpoint(long sequence) {
+        checkpointRepository.save(SpoolCheckpoint.builder()
+            .name(DetectionJournal.CHECKPOINT_NAME)
+            .lastSequence(sequence)
+            .updatedAt(LocalDateTime.now())
+            .build());
+    }
+
+    // Connectivity problems are retried forever; only a definite rejection of one record is skipped
+    private boolean isPoison(Exception e) {
+        return e instanceof NonTransientDataAccessException
+            && !(e instanceof DataAccessResourceFailureException);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
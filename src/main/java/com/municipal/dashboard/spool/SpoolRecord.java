@@ -0,0 +1,12 @@
+package com.municipal.dashboard.spool;
+
+import com.municipal.dashboard.dto.HeightDetectionMessage;
+
+public record SpoolRecord(long sequence, Type type, HeightDetectionMessage message) {
+    
+    public enum Type {
+        HEIGHT,
+        VIOLATION,
+        HEARTBEAT
+    }
+}
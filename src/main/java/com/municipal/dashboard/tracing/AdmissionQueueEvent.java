@@ -0,0 +1,19 @@
+package com.municipal.dashboard.tracing;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// Emitted at dispatch; the wait itself happened on another thread, so it is carried as a field
+@Name("com.municipal.dashboard.AdmissionQueue")
+@Label("Admission Queue Wait")
+public class AdmissionQueueEvent extends IngestStageEvent {
+
+    @Label("Queue Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueTime;
+
+    public void setQueueTime(long queueTime) {
+        this.queueTime = queueTime;
+    }
+}
@@ -0,0 +1,9 @@
+package com.municipal.dashboard.tracing;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.municipal.dashboard.DetectorLookup")
+@Label("Detector Lookup")
+public class DetectorLookupEvent extends IngestStageEvent {
+}
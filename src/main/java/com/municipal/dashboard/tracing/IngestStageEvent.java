@@ -0,0 +1,31 @@
+package com.municipal.dashboard.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Common fields of the per-message ingest stages. The correlation id is assigned when the MQTT
+ * message arrives; once the message is journaled, {@link JournalAppendEvent} ties it to the
+ * journal sequence that the batch-level drain events report.
+ */
+@Category({"Bridge Safe", "Ingest"})
+public abstract class IngestStageEvent extends Event {
+
+    @Label("Device ID")
+    String deviceId;
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Correlation ID")
+    @Description("Assigned on MQTT receive; 0 when the stage was not reached through MQTT")
+    long correlationId;
+
+    public void set(String deviceId, String messageType, long correlationId) {
+        this.deviceId = deviceId;
+        this.messageType = messageType;
+        this.correlationId = correlationId;
+    }
+}
@@ -0,0 +1,53 @@
+package com.municipal.dashboard.tracing;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Correlation ids and the per-thread trace context of the ingest path. The context tells stages
+ * further down (WebSocket sends) which message or journal batch they are working for.
+ */
+public final class IngestTracing {
+
+    private static final AtomicLong CORRELATION = new AtomicLong();
+    private static final ThreadLocal<Context> CURRENT = new ThreadLocal<>();
+
+    private IngestTracing() {
+    }
+
+    public static long nextCorrelationId() {
+        return CORRELATION.incrementAndGet();
+    }
+
+    public static Context current() {
+        return CURRENT.get();
+    }
+
+    public static Scope open(Context context) {
+        Context previous = CURRENT.get();
+        CURRENT.set(context);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public record Context(String deviceId, String messageType, long correlationId,
+                          long firstSequence, long lastSequence) {
+
+        public static Context message(String deviceId, String messageType, long correlationId) {
+            return new Context(deviceId, messageType, correlationId, 0, 0);
+        }
+
+        public static Context batch(long firstSequence, long lastSequence) {
+            return new Context(null, "BATCH", 0, firstSequence, lastSequence);
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
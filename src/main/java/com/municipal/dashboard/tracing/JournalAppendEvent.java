@@ -0,0 +1,16 @@
+package com.municipal.dashboard.tracing;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.municipal.dashboard.JournalAppend")
+@Label("Journal Append")
+public class JournalAppendEvent extends IngestStageEvent {
+
+    @Label("Journal Sequence")
+    long sequence;
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+}
@@ -0,0 +1,35 @@
+package com.municipal.dashboard.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// One journal batch applied and committed; covers lookups, inserts, heartbeats and the commit
+@Name("com.municipal.dashboard.SpoolDrain")
+@Label("Spool Drain Batch")
+@Category({"Bridge Safe", "Ingest"})
+public class SpoolDrainEvent extends Event {
+
+    @Label("First Sequence")
+    long firstSequence;
+
+    @Label("Last Sequence")
+    long lastSequence;
+
+    @Label("Records")
+    int records;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    public void set(long firstSequence, long lastSequence, int records) {
+        this.firstSequence = firstSequence;
+        this.lastSequence = lastSequence;
+        this.records = records;
+    }
+
+    public void setSucceeded(boolean succeeded) {
+        this.succeeded = succeeded;
+    }
+}
@@ -0,0 +1,10 @@
+package com.municipal.dashboard.tracing;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Direct (unjournaled) path: lookup, insert and the JPA commit of one reading
+@Name("com.municipal.dashboard.ViolationPersist")
+@Label("Violation Persist")
+public class ViolationPersistEvent extends IngestStageEvent {
+}
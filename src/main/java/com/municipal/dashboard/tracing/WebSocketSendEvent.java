@@ -0,0 +1,27 @@
+package com.municipal.dashboard.tracing;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.municipal.dashboard.WebSocketSend")
+@Label("WebSocket Send")
+public class WebSocketSendEvent extends IngestStageEvent {
+
+    @Label("Destination")
+    String destination;
+
+    @Label("First Sequence")
+    long firstSequence;
+
+    @Label("Last Sequence")
+    long lastSequence;
+
+    public void setDestination(String destination) {
+        this.destination = destination;
+    }
+
+    public void setSequences(long firstSequence, long lastSequence) {
+        this.firstSequence = firstSequence;
+        this.lastSequence = lastSequence;
+    }
+}
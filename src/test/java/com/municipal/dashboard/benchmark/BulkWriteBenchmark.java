@@ -0,0 +1,116 @@
+package com.municipal.dashboard.benchmark;
+
+import com.municipal.dashboard.MuncipalDashboardApplication;
+import com.municipal.dashboard.dto.DetectorImportRow;
+import com.municipal.dashboard.dto.HeightDetectionMessage;
+import com.municipal.dashboard.service.DetectorService;
+import com.municipal.dashboard.service.ViolationService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rows per second of the JPA and the COPY-based bulk write backends against the same PostgreSQL
+ * database: detector import, violation batches and heartbeat flushes. Each backend runs in its
+ * own application context on a freshly created schema. No MQTT broker is needed; the inbound
+ * adapter's connection errors can be ignored.
+ *
+ * Run with: mvn -q test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.municipal.dashboard.benchmark.BulkWriteBenchmark
+ *           -Dexec.args="jdbc:postgresql://localhost:5432/bench postgres postgres"
+ */
+public class BulkWriteBenchmark {
+
+    private static final int DETECTORS = 20_000;
+    private static final int BATCH_SIZE = 5_000;
+    private static final int VIOLATION_BATCHES = 20;
+    private static final int HEARTBEAT_FLUSHES = 20;
+
+    public static void main(String[] args) {
+        String url = args.length > 0 ? args[0] : "jdbc:postgresql://localhost:5432/bench";
+        String user = args.length > 1 ? args[1] : "postgres";
+        String password = args.length > 2 ? args[2] : "postgres";
+
+        System.out.printf("%-10s %-14s %12s %14s%n", "backend", "workload", "rows", "rows/s");
+        for (String backend : List.of("jpa", "postgres")) {
+            try (ConfigurableApplicationContext context = start(backend, url, user, password)) {
+                run(backend, context);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String backend, String url, String user, String password) {
+        return new SpringApplicationBuilder(MuncipalDashboardApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=" + url,
+                "spring.datasource.username=" + user,
+                "spring.datasource.password=" + password,
+                "spring.datasource.driver-class-name=org.postgresql.Driver",
+                "spring.jpa.hibernate.ddl-auto=create",
+                "spring.jpa.show-sql=false",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+                "app.bulk-write.backend=" + backend,
+                "app.spool.enabled=false",
+                "app.retention.enabled=false",
+                "app.detector.republish-config-on-startup=false",
+                "logging.level.root=WARN")
+            .run();
+    }
+
+    private static void run(String backend, ConfigurableApplicationContext context) {
+        DetectorService detectorService = context.getBean(DetectorService.class);
+        ViolationService violationService = context.getBean(ViolationService.class);
+
+        List<DetectorImportRow> rows = new ArrayList<>(DETECTORS);
+        List<String> deviceIds = new ArrayList<>(DETECTORS);
+        for (int i = 0; i < DETECTORS; i++) {
+            String deviceId = "BENCH_" + i;
+            deviceIds.add(deviceId);
+            rows.add(DetectorImportRow.builder()
+                .deviceId(deviceId)
+                .location("Benchmark Bridge " + i)
+                .clearanceHeight(13.5)
+                .build());
+        }
+        long start = System.nanoTime();
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            detectorService.importDetectors(rows.subList(from, Math.min(rows.size(), from + BATCH_SIZE)));
+        }
+        report(backend, "import", DETECTORS, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int batch = 0; batch < VIOLATION_BATCHES; batch++) {
+            violationService.processHeightDetections(readings(batch, deviceIds));
+        }
+        report(backend, "violations", VIOLATION_BATCHES * BATCH_SIZE, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int flush = 0; flush < HEARTBEAT_FLUSHES; flush++) {
+            detectorService.updateHeartbeats(deviceIds.subList(0, BATCH_SIZE));
+        }
+        report(backend, "heartbeats", HEARTBEAT_FLUSHES * BATCH_SIZE, System.nanoTime() - start);
+    }
+
+    private static List<HeightDetectionMessage> readings(int batch, List<String> deviceIds) {
+        List<HeightDetectionMessage> readings = new ArrayList<>(BATCH_SIZE);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            readings.add(HeightDetectionMessage.builder()
+                .deviceId(deviceIds.get((batch * BATCH_SIZE + i) % deviceIds.size()))
+                .height(14.0 + (i % 30) / 10.0)
+                .timestamp(now)
+                .sensorStatus("OK")
+                .build());
+        }
+        return readings;
+    }
+
+    private static void report(String backend, String workload, int rows, long nanos) {
+        System.out.printf("%-10s %-14s %12d %14.0f%n", backend, workload, rows, rows / (nanos / 1e9));
+    }
+}
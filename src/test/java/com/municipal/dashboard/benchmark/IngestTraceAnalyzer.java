@@ -0,0 +1,129 @@
+package com.municipal.dashboard.benchmark;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Turns a flight recording into a per-stage latency breakdown of the ingest path, plus the
+ * end-to-end latency from MQTT decode to the commit that made a reading durable in the database
+ * (the drain batch covering its journal sequence, or the direct persist).
+ *
+ * Record with: -XX:StartFlightRecording=filename=ingest.jfr,settings=profile
+ * Analyze with: mvn -q test-compile exec:java -Dexec.classpathScope=test
+ *               -Dexec.mainClass=com.municipal.dashboard.benchmark.IngestTraceAnalyzer
+ *               -Dexec.args="ingest.jfr"
+ */
+public class IngestTraceAnalyzer {
+
+    private static final String PREFIX = "com.municipal.dashboard.";
+
+    private final Map<String, List<Long>> stages = new LinkedHashMap<>();
+    private final Map<Long, Instant> decodedAt = new HashMap<>();
+    private final Map<Long, Long> sequences = new HashMap<>();
+    private final Map<Long, Instant> persistedAt = new HashMap<>();
+    // firstSequence -> successful drain batch
+    private final TreeMap<Long, Drain> drains = new TreeMap<>();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: IngestTraceAnalyzer <recording.jfr> [...]");
+            System.exit(2);
+        }
+        IngestTraceAnalyzer analyzer = new IngestTraceAnalyzer();
+        for (String file : args) {
+            analyzer.read(Paths.get(file));
+        }
+        analyzer.report();
+    }
+
+    void read(Path recording) throws IOException {
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                String name = event.getEventType().getName();
+                if (name.startsWith(PREFIX)) {
+                    accept(name.substring(PREFIX.length()), event);
+                }
+            }
+        }
+    }
+
+    private void accept(String stage, RecordedEvent event) {
+        Duration duration = stage.equals("AdmissionQueue")
+            ? event.getDuration("queueTime")
+            : event.getDuration();
+        stages.computeIfAbsent(stage, s -> new ArrayList<>()).add(duration.toNanos());
+
+        switch (stage) {
+            case "MqttDecode" -> decodedAt.put(event.getLong("correlationId"), event.getStartTime());
+            case "JournalAppend" -> sequences.put(event.getLong("correlationId"), event.getLong("sequence"));
+            case "ViolationPersist" -> persistedAt.put(event.getLong("correlationId"), event.getEndTime());
+            case "SpoolDrain" -> {
+                if (event.getBoolean("succeeded")) {
+                    drains.put(event.getLong("firstSequence"),
+                               new Drain(event.getLong("lastSequence"), event.getEndTime()));
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    void report() {
+        System.out.printf("%-20s %10s %12s %12s %12s %12s%n", "stage", "count", "p50 us", "p95 us", "p99 us", "max us");
+        stages.forEach(this::print);
+
+        List<Long> endToEnd = new ArrayList<>();
+        decodedAt.forEach((correlationId, start) -> {
+            Instant end = durableAt(correlationId);
+            if (end != null && correlationId != 0) {
+                endToEnd.add(Duration.between(start, end).toNanos());
+            }
+        });
+        if (!endToEnd.isEmpty()) {
+            print("end-to-end", endToEnd);
+        }
+    }
+
+    private Instant durableAt(long correlationId) {
+        Instant direct = persistedAt.get(correlationId);
+        if (direct != null) {
+            return direct;
+        }
+        Long sequence = sequences.get(correlationId);
+        if (sequence == null) {
+            return null;
+        }
+        Map.Entry<Long, Drain> drain = drains.floorEntry(sequence);
+        return drain != null && sequence <= drain.getValue().lastSequence() ? drain.getValue().committedAt() : null;
+    }
+
+    private void print(String stage, List<Long> nanos) {
+        long[] sorted = nanos.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        System.out.printf("%-20s %10d %12.1f %12.1f %12.1f %12.1f%n", stage, sorted.length,
+                          percentile(sorted, 0.50), percentile(sorted, 0.95),
+                          percentile(sorted, 0.99), sorted[sorted.length - 1] / 1_000.0);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000.0;
+    }
+
+    private record Drain(long lastSequence, Instant committedAt) {
+    }
+}
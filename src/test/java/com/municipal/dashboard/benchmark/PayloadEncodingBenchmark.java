@@ -0,0 +1,131 @@
+package com.municipal.dashboard.benchmark;
+
+import com.municipal.dashboard.config.JacksonConfig;
+import com.municipal.dashboard.dto.ViolationResponse;
+import com.municipal.dashboard.dto.WebSocketNotification;
+import com.municipal.dashboard.model.ViolationSeverity;
+import com.municipal.dashboard.model.ViolationStatus;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reports payload size and serialization cost of JSON, gzipped JSON, CBOR and Smile for a
+ * typical pending-violation listing and a burst of STOMP notifications.
+ *
+ * Run with: mvn -q test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.municipal.dashboard.benchmark.PayloadEncodingBenchmark
+ */
+public class PayloadEncodingBenchmark {
+
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final int MEASURED_ROUNDS = 5_000;
+
+    // Keeps the JIT from discarding serialized output
+    private static volatile long blackhole;
+
+    public static void main(String[] args) throws Exception {
+        JacksonConfig config = new JacksonConfig();
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("json", JsonMapper.builder().build());
+        mappers.put("cbor", config.cborMapper());
+        mappers.put("smile", config.smileMapper());
+
+        List<ViolationResponse> listing = violations(500);
+        List<WebSocketNotification> burst = notifications(100);
+
+        report("pending listing (500 violations)", listing, mappers);
+        report("notification burst (100 frames)", burst, mappers);
+    }
+
+    private static void report(String label, Object payload, Map<String, ObjectMapper> mappers) throws Exception {
+        System.out.printf("%n%s%n", label);
+        System.out.printf("  %-10s %12s %14s%n", "encoding", "bytes", "us/op");
+        for (Map.Entry<String, ObjectMapper> entry : mappers.entrySet()) {
+            ObjectMapper mapper = entry.getValue();
+            byte[] bytes = serialize(mapper, payload);
+            double micros = time(mapper, payload);
+            System.out.printf("  %-10s %12d %14.1f%n", entry.getKey(), bytes.length, micros);
+            if (entry.getKey().equals("json")) {
+                System.out.printf("  %-10s %12d %14s%n", "json+gzip", gzip(bytes).length, "-");
+            }
+        }
+    }
+
+    private static byte[] serialize(ObjectMapper mapper, Object payload) throws Exception {
+        if (payload instanceof List<?> list && !list.isEmpty() && list.get(0) instanceof WebSocketNotification) {
+            // Notifications travel as individual frames, so size the burst frame by frame
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (Object frame : list) {
+                out.write(mapper.writeValueAsBytes(frame));
+            }
+            return out.toByteArray();
+        }
+        return mapper.writeValueAsBytes(payload);
+    }
+
+    private static double time(ObjectMapper mapper, Object payload) throws Exception {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += serialize(mapper, payload).length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += serialize(mapper, payload).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        blackhole = sink;
+        return elapsed / 1_000.0 / MEASURED_ROUNDS;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static List<ViolationResponse> violations(int count) {
+        List<ViolationResponse> violations = new ArrayList<>(count);
+        ViolationSeverity[] severities = ViolationSeverity.values();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            double height = 13.6 + (i % 30) / 10.0;
+            violations.add(ViolationResponse.builder()
+                .id((long) i)
+                .deviceId("DET_" + (i % 40))
+                .location("Main Street Bridge " + (i % 40))
+                .detectedHeight(height)
+                .clearanceHeight(13.5)
+                .excessHeight(height - 13.5)
+                .severity(severities[i % severities.length])
+                .status(ViolationStatus.DETECTED)
+                .detectedAt(now.minusSeconds(i * 17L))
+                .build());
+        }
+        return violations;
+    }
+
+    private static List<WebSocketNotification> notifications(int count) {
+        List<WebSocketNotification> notifications = new ArrayList<>(count);
+        for (ViolationResponse violation : violations(count)) {
+            notifications.add(WebSocketNotification.builder()
+                .notificationType(WebSocketNotification.NotificationType.NEW_VIOLATION)
+                .message(String.format("New violation detected at %s - Height: %.2f ft (Clearance: %.2f ft)",
+                        violation.getLocation(), violation.getDetectedHeight(), violation.getClearanceHeight()))
+                .deviceId(violation.getDeviceId())
+                .location(violation.getLocation())
+                .data(violation)
+                .build());
+        }
+        return notifications;
+    }
+}
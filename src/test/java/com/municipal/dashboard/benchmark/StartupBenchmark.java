@@ -0,0 +1,119 @@
+package com.municipal.dashboard.benchmark;
+
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures time to first processed MQTT message: starts the packaged application, publishes a
+ * heartbeat every 50 ms to a running broker and polls /api/dashboard/startup until the server
+ * reports the first processed message. Needs a broker on tcp://localhost:1883.
+ *
+ * Run with: mvn -q test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.municipal.dashboard.benchmark.StartupBenchmark
+ *           -Dexec.args="5 java -jar target/clearance-detector-dashboard-0.0.1-SNAPSHOT.jar"
+ * Compare with the faststart build by passing its command line instead (see the faststart profile).
+ */
+public class StartupBenchmark {
+
+    private static final String BROKER = "tcp://localhost:1883";
+    private static final String STARTUP_URL = "http://localhost:8080/api/dashboard/startup";
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        List<String> command = args.length > 1
+            ? Arrays.asList(args).subList(1, args.length)
+            : List.of("java", "-jar", "target/clearance-detector-dashboard-0.0.1-SNAPSHOT.jar");
+
+        ObjectMapper mapper = JsonMapper.builder().build();
+        HttpClient http = HttpClient.newHttpClient();
+        List<Long> ready = new ArrayList<>();
+        List<Long> firstProcessed = new ArrayList<>();
+
+        for (int round = 1; round <= rounds; round++) {
+            Process app = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            MqttClient publisher = new MqttClient(BROKER, "startup-benchmark-" + round, new MemoryPersistence());
+            try {
+                MqttConnectOptions options = new MqttConnectOptions();
+                options.setCleanSession(true);
+                publisher.connect(options);
+
+                long deadline = System.currentTimeMillis() + TIMEOUT.toMillis();
+                JsonNode timings = null;
+                while (System.currentTimeMillis() < deadline) {
+                    publish(publisher);
+                    timings = poll(http, mapper);
+                    if (processed(timings)) {
+                        break;
+                    }
+                    Thread.sleep(50);
+                }
+                if (!processed(timings)) {
+                    System.out.printf("round %d: no message processed within %s%n", round, TIMEOUT);
+                    continue;
+                }
+                ready.add(timings.path("ready_ms").asLong());
+                firstProcessed.add(timings.path("first_message_processed_ms").asLong());
+                System.out.printf("round %d: ready %d ms, first processed message %d ms%n",
+                        round, ready.get(ready.size() - 1), firstProcessed.get(firstProcessed.size() - 1));
+            } finally {
+                if (publisher.isConnected()) {
+                    publisher.disconnect();
+                }
+                publisher.close();
+                app.destroy();
+                app.waitFor();
+            }
+        }
+
+        System.out.printf("%nmedian ready %d ms, median first processed message %d ms over %d rounds%n",
+                median(ready), median(firstProcessed), firstProcessed.size());
+    }
+
+    private static void publish(MqttClient publisher) throws MqttException {
+        String payload = "{\"device_id\":\"STARTUP_BENCH\",\"sensor_status\":\"OK\"}";
+        publisher.publish("detector/STARTUP_BENCH/heartbeat", payload.getBytes(StandardCharsets.UTF_8), 1, false);
+    }
+
+    private static boolean processed(JsonNode timings) {
+        return timings != null && timings.path("first_message_processed_ms").isNumber();
+    }
+
+    // Null until the HTTP port is up
+    private static JsonNode poll(HttpClient http, ObjectMapper mapper) {
+        try {
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(STARTUP_URL))
+                .timeout(Duration.ofSeconds(1))
+                .build(), HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? mapper.readTree(response.body()) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static long median(List<Long> values) {
+        if (values.isEmpty()) {
+            return -1;
+        }
+        List<Long> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,200 @@
+package com.municipal.dashboard.repository;
+
+import com.municipal.dashboard.MuncipalDashboardApplication;
+import com.municipal.dashboard.model.Detector;
+import com.municipal.dashboard.model.ReportingMode;
+import com.municipal.dashboard.model.Violation;
+import com.municipal.dashboard.model.ViolationSeverity;
+import com.municipal.dashboard.model.ViolationStatus;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Writes the same detectors and violations through the JPA and the COPY backend, each into its
+ * own database, and compares the stored rows. The values are picked to trip up CSV encoding:
+ * quotes, separators, newlines, backslashes, empty strings next to NULLs, exponent notation
+ * and sub-millisecond timestamps.
+ */
+class BulkWriteBackendsTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 3, 1, 8, 30, 15, 123_456_000);
+    private static final LocalDateTime UPDATED = LocalDateTime.of(2025, 3, 2, 17, 5, 0, 987_654_789);
+    private static final LocalDateTime HEARTBEAT = LocalDateTime.of(2025, 3, 3, 0, 0, 1, 500_000);
+
+    private static EmbeddedPostgres postgres;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        JdbcTemplate admin = new JdbcTemplate(postgres.getPostgresDatabase());
+        admin.execute("CREATE DATABASE jpa_backend");
+        admin.execute("CREATE DATABASE copy_backend");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void bothBackendsStoreIdenticalRows() {
+        Map<String, List<Map<String, Object>>> jpa = writeAndDump("jpa", "jpa_backend");
+        Map<String, List<Map<String, Object>>> copy = writeAndDump("postgres", "copy_backend");
+
+        assertThat(copy.get("detectors")).hasSize(2).isEqualTo(jpa.get("detectors"));
+        assertThat(copy.get("violations")).hasSize(6).isEqualTo(jpa.get("violations"));
+
+        List<Object> notes = copy.get("violations").stream().map(row -> row.get("notes")).toList();
+        assertThat(notes).containsExactly("He said \"stop\", then left", "line one\nline two", "C:\\temp\\new",
+                                          "", null, "Brücke, Süd");
+        Map<String, Object> quoted = copy.get("detectors").stream()
+            .filter(row -> "BULK_QUOTES".equals(row.get("device_id")))
+            .findFirst()
+            .orElseThrow();
+        assertThat(quoted.get("description")).isEqualTo("");
+        assertThat(quoted.get("location")).isEqualTo("Main St \"Old\" Bridge, north, span 2 (resurveyed)");
+    }
+
+    private Map<String, List<Map<String, Object>>> writeAndDump(String backend, String database) {
+        try (ConfigurableApplicationContext context = start(backend, postgres.getJdbcUrl("postgres", database))) {
+            BulkWriteRepository repository = context.getBean(BulkWriteRepository.class);
+            assertThat(repository.getName()).isEqualTo(backend);
+            TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+
+            transaction.executeWithoutResult(status -> repository.insertDetectors(detectors()));
+            Map<String, Detector> byDevice = context.getBean(DetectorRepository.class).findAll().stream()
+                .collect(Collectors.toMap(Detector::getDeviceId, Function.identity()));
+
+            // Ids come back to the caller and match what was stored
+            List<Violation> saved = transaction.execute(status -> repository.insertViolations(violations(byDevice)));
+            assertThat(saved).extracting(Violation::getId)
+                .containsExactlyElementsOf(jdbc.queryForList("SELECT id FROM violations ORDER BY id", Long.class));
+
+            // A detector deleted while an import runs must not come back from its update
+            jdbc.update("DELETE FROM detectors WHERE device_id = ?", "BULK_GONE");
+            transaction.executeWithoutResult(status -> repository.updateDetectors(updates(byDevice)));
+            assertThat(jdbc.queryForObject("SELECT count(*) FROM detectors WHERE device_id = 'BULK_GONE'", Integer.class))
+                .isZero();
+            transaction.executeWithoutResult(status -> repository.updateHeartbeats(List.of("BULK_QUOTES"), HEARTBEAT));
+
+            Map<String, List<Map<String, Object>>> rows = Map.of(
+                "detectors", jdbc.queryForList("SELECT * FROM detectors ORDER BY device_id"),
+                "violations", jdbc.queryForList("SELECT * FROM violations ORDER BY id"));
+
+            // Pre-allocated ids came from the identity sequence, so ordinary inserts continue after them
+            Violation next = violation(byDevice.get("BULK_QUOTES"), 14.0, "after bulk", null);
+            Long nextId = transaction.execute(status -> context.getBean(ViolationRepository.class).save(next).getId());
+            assertThat(nextId).isGreaterThan(saved.get(saved.size() - 1).getId());
+            return rows;
+        }
+    }
+
+    // Passed as command line arguments: default properties would lose to application.yml and leave the app on H2
+    private static ConfigurableApplicationContext start(String backend, String url) {
+        return new SpringApplicationBuilder(MuncipalDashboardApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.datasource.driver-class-name=org.postgresql.Driver",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+                "--app.bulk-write.backend=" + backend,
+                "--app.spool.enabled=false",
+                "--app.retention.enabled=false",
+                "--app.detector.republish-config-on-startup=false",
+                "--logging.level.root=WARN");
+    }
+
+    private static List<Detector> detectors() {
+        return List.of(
+            detector("BULK_QUOTES", "Main St \"Old\" Bridge, north, span 2", 13.5, "", 40.7128, -74.006, null),
+            detector("BULK_EXPONENT", "Rail Underpass", 1.0E-7, null, null, 1.5E10, ReportingMode.ALL_READINGS),
+            detector("BULK_GONE", "Line one\nLine two \\ back", 0.1 + 0.2, "multi\nline", -33.8688, 151.2093,
+                     ReportingMode.VIOLATIONS_ONLY));
+    }
+
+    private static Detector detector(String deviceId, String location, double clearance, String description,
+                                     Double latitude, Double longitude, ReportingMode reportingMode) {
+        return Detector.builder()
+            .deviceId(deviceId)
+            .location(location)
+            .clearanceHeight(clearance)
+            .description(description)
+            .latitude(latitude)
+            .longitude(longitude)
+            .reportingMode(reportingMode)
+            .active(true)
+            .lastHeartbeat(CREATED)
+            .createdAt(CREATED)
+            .updatedAt(CREATED)
+            .build();
+    }
+
+    private static List<Detector> updates(Map<String, Detector> byDevice) {
+        List<Detector> updates = new ArrayList<>();
+        for (String deviceId : List.of("BULK_QUOTES", "BULK_EXPONENT", "BULK_GONE")) {
+            Detector detector = byDevice.get(deviceId);
+            updates.add(Detector.builder()
+                .deviceId(deviceId)
+                .location(detector.getLocation() + " (resurveyed)")
+                .clearanceHeight(detector.getClearanceHeight() * 3)
+                .description(detector.getDescription())
+                .latitude(detector.getLatitude())
+                .longitude(detector.getLongitude())
+                .updatedAt(UPDATED)
+                .build());
+        }
+        return updates;
+    }
+
+    private static List<Violation> violations(Map<String, Detector> byDevice) {
+        Detector quotes = byDevice.get("BULK_QUOTES");
+        Detector exponent = byDevice.get("BULK_EXPONENT");
+        return new ArrayList<>(List.of(
+            violation(quotes, 14.25, "He said \"stop\", then left", null),
+            violation(quotes, 13.5000000001, "line one\nline two", UPDATED),
+            violation(exponent, 2.5E-5, "C:\\temp\\new", null),
+            violation(exponent, 1.2345678901234567E12, "", null),
+            violation(quotes, 0.1 + 0.2 + 13.5, null, CREATED),
+            violation(exponent, 16.0, "Brücke, Süd", null)));
+    }
+
+    private static Violation violation(Detector detector, double height, String notes, LocalDateTime acknowledgedAt) {
+        return Violation.builder()
+            .detector(detector)
+            .detectedHeight(height)
+            .clearanceHeight(detector.getClearanceHeight())
+            .excessHeight(height - detector.getClearanceHeight())
+            .severity(ViolationSeverity.HIGH)
+            .status(acknowledgedAt != null ? ViolationStatus.ACKNOWLEDGED : ViolationStatus.DETECTED)
+            .notes(notes)
+            .detectedAt(UPDATED)
+            .acknowledgedAt(acknowledgedAt)
+            .createdAt(CREATED)
+            .build();
+    }
+}
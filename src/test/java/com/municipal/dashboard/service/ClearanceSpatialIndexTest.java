@@ -0,0 +1,172 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.model.Detector;
+import com.municipal.dashboard.repository.DetectorRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClearanceSpatialIndexTest {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    @Test
+    void findsLowStructuresInsideCorridorOrderedAlongRoute() {
+        // A straight eastbound route along the equator, 0.1 degrees (about 11 km) long
+        ClearanceSpatialIndex index = index(200_000,
+            detector("NEAR_END", 0.0001, 0.09, 3.5),
+            detector("NEAR_START", -0.0001, 0.01, 3.8),
+            detector("TALL_ENOUGH", 0.0, 0.05, 4.5),
+            detector("OUTSIDE_CORRIDOR", 0.001, 0.05, 3.0),
+            detector("PAST_THE_END", 0.0, 0.2, 3.0));
+
+        List<ClearanceSpatialIndex.Match> matches = index.findBlocking(route(0, 0, 0, 0.1), 30, 4.0);
+
+        assertThat(matches).extracting(match -> match.structure().deviceId())
+            .containsExactly("NEAR_START", "NEAR_END");
+        ClearanceSpatialIndex.Match first = matches.get(0);
+        assertThat(first.distanceFromRoute()).isCloseTo(0.0001 * METERS_PER_DEGREE, within(0.01));
+        assertThat(first.distanceAlongRoute()).isCloseTo(0.01 * METERS_PER_DEGREE, within(0.01));
+        assertThat(first.shortfall()).isCloseTo(0.2, within(1e-9));
+    }
+
+    @Test
+    void measuresDistanceToTheNearestPointOfTheSegment() {
+        ClearanceSpatialIndex index = index(200_000,
+            detector("BEYOND_START", 0.0, -0.0002, 3.0),
+            detector("BEYOND_END", 0.0, 0.1003, 3.0));
+
+        // Both lie off the ends of the segment, about 22 m and 33 m from its end points
+        List<ClearanceSpatialIndex.Match> matches = index.findBlocking(route(0, 0, 0, 0.1), 30, 4.0);
+
+        assertThat(matches).extracting(match -> match.structure().deviceId()).containsExactly("BEYOND_START");
+        assertThat(matches.get(0).distanceAlongRoute()).isZero();
+    }
+
+    @Test
+    void keepsTheClosestApproachAcrossSegments() {
+        ClearanceSpatialIndex index = index(200_000, detector("CORNER", 0.0002, 0.0498, 3.0));
+
+        // East then north around the structure; the second leg passes closer
+        List<ClearanceSpatialIndex.Match> matches =
+            index.findBlocking(route(0, 0, 0, 0.05, 0.05, 0.05), 50, 4.0);
+
+        assertThat(matches).hasSize(1);
+        assertThat(matches.get(0).distanceFromRoute()).isCloseTo(0.0002 * METERS_PER_DEGREE, within(0.5));
+        assertThat(matches.get(0).distanceAlongRoute()).isCloseTo(0.0502 * METERS_PER_DEGREE, within(0.5));
+    }
+
+    @Test
+    void singlePointRouteIsACircle() {
+        ClearanceSpatialIndex index = index(200_000,
+            detector("INSIDE", 45.0002, 7.0, 3.0),
+            detector("OUTSIDE", 45.001, 7.0, 3.0));
+
+        assertThat(index.findBlocking(route(45, 7), 30, 4.0))
+            .extracting(match -> match.structure().deviceId())
+            .containsExactly("INSIDE");
+    }
+
+    @Test
+    void segmentAcrossTheAntimeridianTakesTheShortWay() {
+        ClearanceSpatialIndex index = index(200_000,
+            detector("EAST_OF_DATELINE", -17.0, -179.995, 3.0),
+            detector("ON_DATELINE", -17.0, 180.0, 3.0),
+            detector("HALF_WAY_ROUND", -17.0, 0.0, 3.0));
+
+        List<ClearanceSpatialIndex.Match> matches = index.findBlocking(route(-17, 179.99, -17, -179.99), 30, 4.0);
+
+        assertThat(matches).extracting(match -> match.structure().deviceId())
+            .containsExactly("ON_DATELINE", "EAST_OF_DATELINE");
+        double metersPerLon = METERS_PER_DEGREE * Math.cos(Math.toRadians(17));
+        assertThat(matches.get(1).distanceAlongRoute()).isCloseTo(0.015 * metersPerLon, within(0.5));
+    }
+
+    @Test
+    void corridorReachingThePoleStaysBounded() {
+        ClearanceSpatialIndex index = index(200_000,
+            detector("NEAR_POLE", 89.9999, 120.0, 3.0),
+            detector("MID_LATITUDE", 60.0, 120.0, 3.0));
+
+        long start = System.nanoTime();
+        List<ClearanceSpatialIndex.Match> matches = index.findBlocking(route(89.9999, 0, 89.9999, 90), 2000, 4.0);
+
+        assertThat(matches).extracting(match -> match.structure().deviceId()).containsExactly("NEAR_POLE");
+        assertThat(System.nanoTime() - start).isLessThan(1_000_000_000L);
+    }
+
+    @Test
+    void rejectsCorridorsCoveringTooManyCells() {
+        ClearanceSpatialIndex index = index(1_000, detector("ANY", 10.0, 10.0, 3.0));
+
+        // About 5000 cell-sized steps along the equator
+        assertThatThrownBy(() -> index.findBlocking(route(0, 0, 0, 50), 30, 4.0))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("1000 grid cells");
+    }
+
+    @Test
+    void upsertMovesAndRemoveDropsStructures() {
+        ClearanceSpatialIndex index = index(200_000, detector("BRIDGE_001", 0.0, 0.05, 3.0));
+        List<double[]> route = route(0, 0, 0, 0.1);
+        assertThat(index.findBlocking(route, 30, 4.0)).hasSize(1);
+
+        index.upsert(detector("BRIDGE_001", 1.0, 0.05, 3.0));
+        assertThat(index.findBlocking(route, 30, 4.0)).isEmpty();
+        assertThat(index.findBlocking(route(1, 0, 1, 0.1), 30, 4.0)).hasSize(1);
+
+        Detector inactive = detector("BRIDGE_001", 1.0, 0.05, 3.0);
+        inactive.setActive(false);
+        index.upsert(inactive);
+        assertThat(index.size()).isZero();
+
+        index.upsert(detector("BRIDGE_002", 0.0, 0.05, 3.0));
+        index.remove("BRIDGE_002");
+        assertThat(index.findBlocking(route, 30, 4.0)).isEmpty();
+    }
+
+    @Test
+    void wrapsLongitudesIntoOneTurn() {
+        assertThat(ClearanceSpatialIndex.wrapLongitude(180)).isEqualTo(-180);
+        assertThat(ClearanceSpatialIndex.wrapLongitude(-180)).isEqualTo(-180);
+        assertThat(ClearanceSpatialIndex.wrapLongitude(359.98)).isCloseTo(-0.02, within(1e-9));
+        assertThat(ClearanceSpatialIndex.wrapLongitude(-359.98)).isCloseTo(0.02, within(1e-9));
+    }
+
+    static ClearanceSpatialIndex index(int maxScannedCells, Detector... detectors) {
+        DetectorRepository repository = mock(DetectorRepository.class);
+        when(repository.findByActive(true)).thenReturn(List.of(detectors));
+        ClearanceSpatialIndex index = new ClearanceSpatialIndex(repository);
+        ReflectionTestUtils.setField(index, "cellSize", 0.01);
+        ReflectionTestUtils.setField(index, "maxScannedCells", maxScannedCells);
+        index.load();
+        return index;
+    }
+
+    static Detector detector(String deviceId, double latitude, double longitude, double clearanceHeight) {
+        return Detector.builder()
+            .deviceId(deviceId)
+            .location(deviceId)
+            .latitude(latitude)
+            .longitude(longitude)
+            .clearanceHeight(clearanceHeight)
+            .active(true)
+            .build();
+    }
+
+    private static List<double[]> route(double... coordinates) {
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i + 1 < coordinates.length; i += 2) {
+            points.add(new double[]{coordinates[i], coordinates[i + 1]});
+        }
+        return points;
+    }
+}
@@ -0,0 +1,152 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.model.Detector;
+import io.moquette.broker.Server;
+import io.moquette.broker.config.MemoryConfig;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class DetectorConfigPublisherBrokerTest {
+
+    private static Server broker;
+    private static String brokerUrl;
+
+    @Autowired
+    private DetectorService detectorService;
+
+    @Autowired
+    private DetectorConfigPublisher detectorConfigPublisher;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    @DynamicPropertySource
+    static void brokerProperties(DynamicPropertyRegistry registry) throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        Properties properties = new Properties();
+        properties.setProperty("host", "127.0.0.1");
+        properties.setProperty("port", String.valueOf(port));
+        properties.setProperty("websocket_port", "disabled");
+        properties.setProperty("allow_anonymous", "true");
+        properties.setProperty("persistence_enabled", "false");
+        broker = new Server();
+        broker.startServer(new MemoryConfig(properties));
+        brokerUrl = "tcp://127.0.0.1:" + port;
+        registry.add("mqtt.broker-url", () -> brokerUrl);
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        if (broker != null) {
+            broker.stopServer();
+        }
+    }
+
+    @Test
+    void retainedConfigArrivesAndIsClearedOnDelete() throws Exception {
+        Detector detector = detectorService.registerDetector("BROKER_TEST_001", "Broker Test Bridge", 13.5);
+        awaitPublished();
+
+        byte[] retained = retainedConfig("BROKER_TEST_001");
+        assertThat(retained).isNotNull();
+        JsonNode config = objectMapper.readTree(retained);
+        assertThat(config.get("device_id").asText()).isEqualTo("BROKER_TEST_001");
+        assertThat(config.get("clearance_height").asDouble()).isEqualTo(13.5);
+
+        detectorService.updateConfig("BROKER_TEST_001", 14.0, null);
+        awaitPublished();
+        assertThat(objectMapper.readTree(retainedConfig("BROKER_TEST_001")).get("clearance_height").asDouble())
+            .isEqualTo(14.0);
+
+        detectorService.retireDetector("BROKER_TEST_001");
+        detectorService.removeRetiredDetector(detector.getId(), "BROKER_TEST_001");
+        awaitPublished();
+        assertThat(retainedConfig("BROKER_TEST_001")).isNull();
+    }
+
+    @Test
+    void bulkRepublishGoesThroughBeyondPahoDefaultInflight() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            detectorService.registerDetector(String.format("BROKER_BULK_%03d", i), "Bulk Bridge " + i, 13.0 + i / 100.0);
+        }
+        awaitPublished();
+        long publishedBefore = (Long) detectorConfigPublisher.getStats().get("published");
+
+        detectorService.republishConfigs();
+        awaitPublished();
+
+        assertThat((Long) detectorConfigPublisher.getStats().get("published") - publishedBefore)
+            .isGreaterThanOrEqualTo(50);
+        assertThat(detectorConfigPublisher.getStats().get("failed")).isEqualTo(0L);
+        assertThat(retainedConfig("BROKER_BULK_049")).isNotNull();
+    }
+
+    private void awaitPublished() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((Long) detectorConfigPublisher.getStats().get("queued") > 0) {
+            assertThat(System.currentTimeMillis()).as("config publishes drained").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    // A fresh subscriber receives the retained message at once, or nothing once it was cleared
+    private static byte[] retainedConfig(String deviceId) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return probe(deviceId);
+            } catch (MqttException e) {
+                // Moquette now and then drops a connection whose SUBSCRIBE overtakes the CONNECT handling
+                if (attempt >= 3) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static byte[] probe(String deviceId) throws Exception {
+        BlockingQueue<byte[]> received = new LinkedBlockingQueue<>();
+        MqttClient client = new MqttClient(brokerUrl, "config-probe-" + UUID.randomUUID(), new MemoryPersistence());
+        MqttConnectOptions options = new MqttConnectOptions();
+        options.setCleanSession(true);
+        client.connect(options);
+        try {
+            client.subscribe("detector/" + deviceId + "/config", 1, (topic, message) -> {
+                // Nothing else publishes on the topic, so anything a fresh subscriber gets was retained;
+                // Moquette does not set the retain flag on messages sent at subscribe time
+                if (message.getPayload().length > 0) {
+                    received.add(message.getPayload());
+                }
+            });
+            return received.poll(2, TimeUnit.SECONDS);
+        } finally {
+            if (client.isConnected()) {
+                client.disconnect();
+            }
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.WebSocketNotification;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationReplayBufferTest {
+
+    @Test
+    void sequencesFollowEachOtherAndTagTheNotification() {
+        NotificationReplayBuffer buffer = new NotificationReplayBuffer(8, 1_000);
+        long start = buffer.getLastSequence();
+
+        WebSocketNotification first = notification("a");
+        long sequence = buffer.append("/topic/violations", first, 10);
+        long next = buffer.append("/topic/stats", notification("b"), 10);
+
+        assertThat(sequence).isEqualTo(start + 1);
+        assertThat(next).isEqualTo(sequence + 1);
+        assertThat(buffer.getLastSequence()).isEqualTo(next);
+        assertThat(first.getSequence()).isEqualTo(sequence);
+        assertThat(first.getDestination()).isEqualTo("/topic/violations");
+    }
+
+    @Test
+    void returnsEverythingAfterTheGivenSequenceInOrder() {
+        NotificationReplayBuffer buffer = new NotificationReplayBuffer(8, 1_000);
+        long start = buffer.getLastSequence();
+        long first = buffer.append("/topic/violations", notification("a"), 10);
+        buffer.append("/topic/violations", notification("b"), 10);
+        long last = buffer.append("/topic/violations", notification("c"), 10);
+
+        assertThat(messages(buffer.since(start))).containsExactly("a", "b", "c");
+        assertThat(messages(buffer.since(first))).containsExactly("b", "c");
+        // Up to date: nothing missed, but no snapshot needed either
+        assertThat(buffer.since(last)).contains(List.of());
+    }
+
+    @Test
+    void ringWrapDropsTheOldest() {
+        NotificationReplayBuffer buffer = new NotificationReplayBuffer(4, 1_000);
+        long start = buffer.getLastSequence();
+        for (String message : List.of("a", "b", "c", "d", "e", "f")) {
+            buffer.append("/topic/violations", notification(message), 10);
+        }
+
+        // a and b were overwritten; a client that saw b can still resume from c
+        assertThat(messages(buffer.since(start + 2))).containsExactly("c", "d", "e", "f");
+        assertThat(buffer.since(start + 1)).isEmpty();
+        assertThat(buffer.since(start)).isEmpty();
+        assertThat(buffer.getRetainedBytes()).isEqualTo(40);
+    }
+
+    @Test
+    void overwrittenSlotsGiveBackTheirBytes() {
+        NotificationReplayBuffer buffer = new NotificationReplayBuffer(2, 1_000);
+        buffer.append("/topic/violations", notification("a"), 10);
+        buffer.append("/topic/violations", notification("b"), 20);
+        buffer.append("/topic/violations", notification("c"), 30);
+
+        assertThat(buffer.getRetainedBytes()).isEqualTo(50);
+    }
+
+    @Test
+    void byteBudgetEvictsBeforeTheRingIsFull() {
+        NotificationReplayBuffer buffer = new NotificationReplayBuffer(10, 100);
+        long start = buffer.getLastSequence();
+        long first = buffer.append("/topic/violations", notification("a"), 40);
+        buffer.append("/topic/violations", notification("b"), 40);
+        buffer.append("/topic/violations", notification("c"), 40);
+
+        assertThat(buffer.getRetainedBytes()).isEqualTo(80);
+        assertThat(messages(buffer.since(first))).containsExactly("b", "c");
+        assertThat(buffer.since(start)).isEmpty();
+    }
+
+    @Test
+    void keepsTheNewestEvenWhenItAloneExceedsTheBudget() {
+        NotificationReplayBuffer buffer = new NotificationReplayBuffer(10, 100);
+        long first = buffer.append("/topic/violations", notification("small"), 30);
+        buffer.append("/topic/violations", notification("large"), 150);
+
+        assertThat(buffer.getRetainedBytes()).isEqualTo(150);
+        assertThat(messages(buffer.since(first))).containsExactly("large");
+        assertThat(buffer.since(first - 1)).isEmpty();
+    }
+
+    @Test
+    void sequencesFromAnotherRunNeedASnapshot() {
+        long before = System.currentTimeMillis() * 1000;
+        NotificationReplayBuffer buffer = new NotificationReplayBuffer(8, 1_000);
+
+        // Seeded from the boot time, so numbering starts above anything an earlier run handed out
+        assertThat(buffer.getLastSequence()).isGreaterThanOrEqualTo(before);
+        assertThat(buffer.since(buffer.getLastSequence())).contains(List.of());
+        assertThat(buffer.since(buffer.getLastSequence() - 1)).isEmpty();
+        // Ahead of this run, e.g. from a server that booted later
+        assertThat(buffer.since(buffer.getLastSequence() + 1)).isEmpty();
+    }
+
+    private static WebSocketNotification notification(String message) {
+        return WebSocketNotification.builder()
+            .notificationType(WebSocketNotification.NotificationType.SYSTEM_ALERT)
+            .message(message)
+            .build();
+    }
+
+    private static List<String> messages(Optional<List<WebSocketNotification>> notifications) {
+        assertThat(notifications).isPresent();
+        return notifications.get().stream().map(WebSocketNotification::getMessage).toList();
+    }
+}
@@ -0,0 +1,155 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.ViolationResponse;
+import com.municipal.dashboard.model.ViolationSeverity;
+import com.municipal.dashboard.model.ViolationStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PendingViolationIndexTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    private final PendingViolationIndex index = new PendingViolationIndex();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void ordersBySeverityRankNotByName() {
+        // Sorted by the stored severity string, MEDIUM came before HIGH and LOW before CRITICAL
+        index.rebuild(List.of(
+            violation(1, ViolationSeverity.LOW, NOON),
+            violation(2, ViolationSeverity.MEDIUM, NOON),
+            violation(3, ViolationSeverity.CRITICAL, NOON),
+            violation(4, ViolationSeverity.HIGH, NOON)));
+
+        assertThat(ids(index.top(10))).containsExactly(3L, 4L, 2L, 1L);
+    }
+
+    @Test
+    void breaksTiesByMostRecentThenHighestId() {
+        index.rebuild(List.of(
+            violation(1, ViolationSeverity.HIGH, NOON.minusMinutes(5)),
+            violation(2, ViolationSeverity.HIGH, NOON),
+            violation(3, ViolationSeverity.HIGH, NOON),
+            violation(4, ViolationSeverity.LOW, NOON.plusHours(1))));
+
+        assertThat(ids(index.top(10))).containsExactly(3L, 2L, 1L, 4L);
+    }
+
+    @Test
+    void topReturnsOnlyTheFirstK() {
+        for (long id = 1; id <= 1_000; id++) {
+            index.add(violation(id, ViolationSeverity.values()[(int) (id % 4)], NOON.plusSeconds(id)));
+        }
+
+        assertThat(index.size()).isEqualTo(1_000);
+        // Highest id with id % 4 == 3 (CRITICAL) is the most recent critical one
+        assertThat(ids(index.top(3))).containsExactly(999L, 995L, 991L);
+        assertThat(index.top(0)).isEmpty();
+        assertThat(index.top(5_000)).hasSize(1_000);
+    }
+
+    @Test
+    void reAddingMovesTheEntryInsteadOfDuplicatingIt() {
+        index.add(violation(1, ViolationSeverity.LOW, NOON));
+        index.add(violation(2, ViolationSeverity.MEDIUM, NOON));
+        index.add(violation(1, ViolationSeverity.CRITICAL, NOON));
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(ids(index.top(10))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void removalsDropExactlyTheGivenIds() {
+        index.rebuild(List.of(
+            violation(1, ViolationSeverity.HIGH, NOON),
+            violation(2, ViolationSeverity.HIGH, NOON),
+            violation(3, ViolationSeverity.LOW, NOON),
+            violation(4, ViolationSeverity.LOW, NOON)));
+
+        index.remove(1L);
+        index.removeAll(List.of(3L, 99L));
+
+        assertThat(ids(index.top(10))).containsExactly(2L, 4L);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void changesApplyOnlyAfterCommit() {
+        index.add(violation(1, ViolationSeverity.LOW, NOON));
+
+        TransactionSynchronizationManager.initSynchronization();
+        index.add(violation(2, ViolationSeverity.HIGH, NOON));
+        index.remove(1L);
+        assertThat(ids(index.top(10))).containsExactly(1L);
+
+        commit();
+        assertThat(ids(index.top(10))).containsExactly(2L);
+    }
+
+    @Test
+    void replaceDoesNotBringBackAnEvictedViolation() {
+        index.rebuild(List.of(
+            violation(1, ViolationSeverity.LOW, NOON),
+            violation(2, ViolationSeverity.LOW, NOON.minusMinutes(1))));
+
+        // A reclassification chunk read both as pending; violation 1 is acknowledged before it commits
+        TransactionSynchronizationManager.initSynchronization();
+        index.replaceAll(List.of(
+            violation(1, ViolationSeverity.CRITICAL, NOON),
+            violation(2, ViolationSeverity.CRITICAL, NOON.minusMinutes(1))));
+        List<TransactionSynchronization> chunk = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        index.remove(1L);
+        chunk.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(ids(index.top(10))).containsExactly(2L);
+        assertThat(index.top(1).get(0).getSeverity()).isEqualTo(ViolationSeverity.CRITICAL);
+    }
+
+    @Test
+    void replaceLeavesUnchangedEntriesAlone() {
+        ViolationResponse indexed = violation(1, ViolationSeverity.HIGH, NOON);
+        index.rebuild(List.of(indexed));
+
+        index.replaceAll(List.of(violation(1, ViolationSeverity.HIGH, NOON)));
+
+        assertThat(index.top(1).get(0)).isSameAs(indexed);
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static ViolationResponse violation(long id, ViolationSeverity severity, LocalDateTime detectedAt) {
+        return ViolationResponse.builder()
+            .id(id)
+            .deviceId("BRIDGE_001")
+            .detectedHeight(14.0)
+            .clearanceHeight(13.5)
+            .excessHeight(0.5)
+            .severity(severity)
+            .status(ViolationStatus.DETECTED)
+            .detectedAt(detectedAt)
+            .build();
+    }
+
+    private static List<Long> ids(List<ViolationResponse> violations) {
+        return violations.stream().map(ViolationResponse::getId).toList();
+    }
+}
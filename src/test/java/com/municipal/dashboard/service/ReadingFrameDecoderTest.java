@@ -0,0 +1,131 @@
+package com.municipal.dashboard.service;
+
+import com.municipal.dashboard.dto.HeightDetectionMessage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReadingFrameDecoderTest {
+
+    private static final long FIRST_MILLIS = 1_740_817_815_123L;
+
+    // Python, as the detector firmware tooling packs it:
+    //   struct.pack("<4sBBH", b"BSDF", 1, 0, 2)
+    //   + struct.pack("<qfhBB", 1740817815123, 14.25, 2130, 0, 1)
+    //   + struct.pack("<qfhBB", 1740817816123, 13.37, -32768, 1, 0)
+    private static final String PYTHON_FRAME =
+        "4253444601000200"
+        + "53d6d35095010000" + "00006441" + "5208" + "00" + "01"
+        + "3bdad35095010000" + "85eb5541" + "0080" + "01" + "00";
+
+    @Test
+    void decodesFramePackedByPythonStruct() {
+        List<ReadingFrameDecoder.Reading> readings =
+            ReadingFrameDecoder.decode("BRIDGE_001", HexFormat.of().parseHex(PYTHON_FRAME));
+
+        assertThat(readings).hasSize(2);
+        HeightDetectionMessage first = readings.get(0).message();
+        assertThat(first.getDeviceId()).isEqualTo("BRIDGE_001");
+        assertThat(first.getTimestamp()).isEqualTo(localTime(FIRST_MILLIS));
+        assertThat(first.getHeight()).isEqualTo(14.25);
+        assertThat(first.getTemperature()).isEqualTo(21.3);
+        assertThat(first.getSensorStatus()).isEqualTo("OK");
+        assertThat(readings.get(0).violation()).isTrue();
+
+        HeightDetectionMessage second = readings.get(1).message();
+        assertThat(second.getTimestamp()).isEqualTo(localTime(FIRST_MILLIS + 1_000));
+        // f32 13.37 is 13.369999885559082; the decoder rounds back to 0.01 ft
+        assertThat(second.getHeight()).isEqualTo(13.37);
+        assertThat(second.getTemperature()).isNull();
+        assertThat(second.getSensorStatus()).isEqualTo("DEGRADED");
+        assertThat(readings.get(1).violation()).isFalse();
+    }
+
+    @Test
+    void roundTripsLittleEndianRecords() {
+        byte[] payload = frame(3)
+            .putLong(FIRST_MILLIS).putFloat(12.5f).putShort((short) -1050).put((byte) 2).put((byte) 0)
+            .putLong(FIRST_MILLIS + 10).putFloat(15.75f).putShort((short) 0).put((byte) 7).put((byte) 0x03)
+            .putLong(FIRST_MILLIS + 20).putFloat(0f).putShort(Short.MIN_VALUE).put((byte) 0).put((byte) 0)
+            .array();
+
+        List<ReadingFrameDecoder.Reading> readings = ReadingFrameDecoder.decode("BRIDGE_002", payload);
+
+        assertThat(readings).extracting(reading -> reading.message().getHeight()).containsExactly(12.5, 15.75, 0.0);
+        assertThat(readings).extracting(reading -> reading.message().getTemperature()).containsExactly(-10.5, 0.0, null);
+        assertThat(readings).extracting(reading -> reading.message().getSensorStatus())
+            .containsExactly("ERROR", "CODE_7", "OK");
+        // Only bit 0 marks a violation; other flag bits are ignored
+        assertThat(readings).extracting(ReadingFrameDecoder.Reading::violation).containsExactly(false, true, false);
+        assertThat(readings.get(2).message().getTimestamp()).isEqualTo(localTime(FIRST_MILLIS + 20));
+    }
+
+    @Test
+    void decodesEmptyFrame() {
+        assertThat(ReadingFrameDecoder.decode("BRIDGE_001", frame(0).array())).isEmpty();
+    }
+
+    @Test
+    void rejectsCountThatDoesNotMatchLength() {
+        // Declares two records but carries one
+        byte[] shortFrame = frame(2, 1)
+            .putLong(FIRST_MILLIS).putFloat(12.5f).putShort((short) 0).put((byte) 0).put((byte) 0)
+            .array();
+        assertThatThrownBy(() -> ReadingFrameDecoder.decode("BRIDGE_001", shortFrame))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Reading frame declares 2 records but has 24 bytes");
+
+        // A trailing partial record
+        byte[] trailing = new byte[8 + 16 + 3];
+        System.arraycopy(frame(1).array(), 0, trailing, 0, 8);
+        assertThatThrownBy(() -> ReadingFrameDecoder.decode("BRIDGE_001", trailing))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("declares 1 records but has 27 bytes");
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] payload = frame(0).array();
+        payload[4] = 2;
+
+        assertThat(ReadingFrameDecoder.isFrame(payload)).isTrue();
+        assertThatThrownBy(() -> ReadingFrameDecoder.decode("BRIDGE_001", payload))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Unsupported reading frame version 2");
+    }
+
+    @Test
+    void recognizesFramesByMagic() {
+        assertThat(ReadingFrameDecoder.isFrame("{\"height\":12.5}".getBytes())).isFalse();
+        assertThat(ReadingFrameDecoder.isFrame(new byte[]{'B', 'S', 'D', 'F'})).isFalse();
+        assertThatThrownBy(() -> ReadingFrameDecoder.decode("BRIDGE_001", "not a frame".getBytes()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Not a reading frame");
+    }
+
+    private static ByteBuffer frame(int records) {
+        return frame(records, records);
+    }
+
+    private static ByteBuffer frame(int declared, int records) {
+        return ByteBuffer.allocate(8 + records * 16)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .put(new byte[]{'B', 'S', 'D', 'F'})
+            .put((byte) ReadingFrameDecoder.VERSION)
+            .put((byte) 0)
+            .putShort((short) declared);
+    }
+
+    private static LocalDateTime localTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,211 @@
+package com.municipal.dashboard.spool;
+
+import com.municipal.dashboard.dto.HeightDetectionMessage;
+import com.municipal.dashboard.model.SpoolCheckpoint;
+import com.municipal.dashboard.repository.SpoolCheckpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DetectionJournalTest {
+
+    // 8 header + 41 fixed + "BRIDGE_001" + "OK"
+    private static final int RECORD_BYTES = 61;
+
+    @TempDir
+    Path directory;
+
+    private DetectionJournal journal;
+
+    @AfterEach
+    void closeJournal() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void replaysAllRecordsAfterReopen() throws IOException {
+        journal = open(0, 4096);
+        journal.append(SpoolRecord.Type.HEIGHT, reading(12.5, 21.3, "OK"));
+        journal.append(SpoolRecord.Type.VIOLATION, reading(14.25, null, null));
+        journal.append(SpoolRecord.Type.HEARTBEAT, HeightDetectionMessage.builder().deviceId("BRIDGE_001").build());
+        journal.close();
+
+        journal = open(0, 4096);
+        List<SpoolRecord> records = journal.read(100).records();
+
+        assertThat(records).extracting(SpoolRecord::sequence).containsExactly(1L, 2L, 3L);
+        assertThat(records).extracting(SpoolRecord::type)
+            .containsExactly(SpoolRecord.Type.HEIGHT, SpoolRecord.Type.VIOLATION, SpoolRecord.Type.HEARTBEAT);
+        HeightDetectionMessage first = records.get(0).message();
+        assertThat(first.getDeviceId()).isEqualTo("BRIDGE_001");
+        assertThat(first.getHeight()).isEqualTo(12.5);
+        assertThat(first.getTemperature()).isEqualTo(21.3);
+        assertThat(first.getSensorStatus()).isEqualTo("OK");
+        assertThat(first.getTimestamp()).isEqualTo(LocalDateTime.of(2025, 3, 1, 8, 30, 15, 123_000_000));
+        HeightDetectionMessage second = records.get(1).message();
+        assertThat(second.getTemperature()).isNull();
+        assertThat(second.getSensorStatus()).isNull();
+        assertThat(records.get(2).message().getHeight()).isNull();
+        assertThat(records.get(2).message().getTimestamp()).isNull();
+    }
+
+    @Test
+    void discardsTornTailAndKeepsAppendingAfterIt() throws IOException {
+        journal = open(0, 4096);
+        for (int i = 0; i < 3; i++) {
+            journal.append(SpoolRecord.Type.HEIGHT, reading(12.0 + i, 20.0, "OK"));
+        }
+        journal.close();
+
+        // A crash after the length of a fourth record was written but before its body was
+        try (RandomAccessFile file = new RandomAccessFile(onlySegment().toFile(), "rw")) {
+            file.seek(3L * RECORD_BYTES);
+            file.writeInt(RECORD_BYTES - 8);
+            file.writeInt(0x12345678);
+            file.writeLong(4);
+        }
+
+        journal = open(0, 4096);
+        assertThat(journal.getLastSequence()).isEqualTo(3);
+        assertThat(journal.append(SpoolRecord.Type.HEIGHT, reading(15.0, 20.0, "OK"))).isEqualTo(4);
+        journal.close();
+
+        journal = open(0, 4096);
+        List<SpoolRecord> records = journal.read(100).records();
+        assertThat(records).extracting(SpoolRecord::sequence).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(records.get(3).message().getHeight()).isEqualTo(15.0);
+    }
+
+    @Test
+    void stopsRecoveryAtCrcMismatch() throws IOException {
+        journal = open(0, 4096);
+        for (int i = 0; i < 3; i++) {
+            journal.append(SpoolRecord.Type.HEIGHT, reading(12.0 + i, 20.0, "OK"));
+        }
+        journal.close();
+
+        // Flip one bit in the height of the second record
+        try (RandomAccessFile file = new RandomAccessFile(onlySegment().toFile(), "rw")) {
+            long position = RECORD_BYTES + 8 + 21;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0x01);
+        }
+
+        journal = open(0, 4096);
+        assertThat(journal.getLastSequence()).isEqualTo(1);
+        assertThat(journal.read(100).records()).extracting(SpoolRecord::sequence).containsExactly(1L);
+    }
+
+    @Test
+    void replaysOnlyRecordsAfterCheckpointAcrossSegments() throws IOException {
+        // Four records per segment, so ten records span three segments
+        journal = open(0, 4 * RECORD_BYTES);
+        for (int i = 0; i < 10; i++) {
+            journal.append(SpoolRecord.Type.HEIGHT, reading(12.0 + i, 20.0, "OK"));
+        }
+        DetectionJournal.Batch drained = journal.read(6);
+        assertThat(drained.lastSequence()).isEqualTo(6);
+        journal.acknowledge(drained);
+        journal.close();
+
+        // The DB committed up to 6 together with the data; the restart must not replay 1..6
+        journal = open(6, 4 * RECORD_BYTES);
+        assertThat(journal.getBacklog()).isEqualTo(4);
+        DetectionJournal.Batch batch = journal.read(100);
+        assertThat(batch.records()).extracting(SpoolRecord::sequence).containsExactly(7L, 8L, 9L, 10L);
+
+        journal.acknowledge(batch);
+        assertThat(journal.read(100).isEmpty()).isTrue();
+        assertThat(journal.append(SpoolRecord.Type.HEIGHT, reading(13.0, 20.0, "OK"))).isEqualTo(11);
+        assertThat(journal.read(100).records()).extracting(SpoolRecord::sequence).containsExactly(11L);
+    }
+
+    @Test
+    void checkpointAheadOfJournalSkipsCommittedRecords() throws IOException {
+        journal = open(0, 4096);
+        for (int i = 0; i < 3; i++) {
+            journal.append(SpoolRecord.Type.HEIGHT, reading(12.0 + i, 20.0, "OK"));
+        }
+        journal.close();
+
+        // Batch committed in the DB, crash before the journal cursor moved
+        journal = open(3, 4096);
+        assertThat(journal.read(100).isEmpty()).isTrue();
+        assertThat(journal.getBacklog()).isZero();
+    }
+
+    @Test
+    void forcesEachAppendBeforeItReturnsByDefault() throws IOException {
+        journal = open(0, 4096);
+
+        long first = journal.append(SpoolRecord.Type.HEIGHT, reading(12.5, 21.3, "OK"));
+        assertThat(journal.getDurableSequence()).isEqualTo(first);
+        long second = journal.append(SpoolRecord.Type.HEIGHT, reading(12.6, 21.3, "OK"));
+        assertThat(journal.getDurableSequence()).isEqualTo(second);
+    }
+
+    @Test
+    void forceIntervalDefersForcingToTheNextWindow() throws IOException {
+        journal = open(0, 4096);
+        ReflectionTestUtils.setField(journal, "forceIntervalMs", 60_000L);
+
+        journal.append(SpoolRecord.Type.HEIGHT, reading(12.5, 21.3, "OK"));
+        long last = journal.append(SpoolRecord.Type.HEIGHT, reading(12.6, 21.3, "OK"));
+        assertThat(journal.getDurableSequence()).isZero();
+
+        journal.force();
+        assertThat(journal.getDurableSequence()).isEqualTo(last);
+    }
+
+    private DetectionJournal open(long checkpoint, int segmentSize) throws IOException {
+        SpoolCheckpointRepository checkpoints = mock(SpoolCheckpointRepository.class);
+        when(checkpoints.findById(DetectionJournal.CHECKPOINT_NAME)).thenReturn(checkpoint == 0
+            ? Optional.empty()
+            : Optional.of(SpoolCheckpoint.builder()
+                .name(DetectionJournal.CHECKPOINT_NAME)
+                .lastSequence(checkpoint)
+                .updatedAt(LocalDateTime.now())
+                .build()));
+        DetectionJournal opened = new DetectionJournal(checkpoints);
+        ReflectionTestUtils.setField(opened, "directory", directory.toString());
+        ReflectionTestUtils.setField(opened, "segmentSize", segmentSize);
+        opened.open();
+        return opened;
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = files.toList();
+            assertThat(segments).hasSize(1);
+            return segments.get(0);
+        }
+    }
+
+    private static HeightDetectionMessage reading(double height, Double temperature, String status) {
+        return HeightDetectionMessage.builder()
+            .deviceId("BRIDGE_001")
+            .timestamp(LocalDateTime.of(2025, 3, 1, 8, 30, 15, 123_000_000))
+            .height(height)
+            .temperature(temperature)
+            .sensorStatus(status)
+            .build();
+    }
+}